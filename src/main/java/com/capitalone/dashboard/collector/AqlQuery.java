@@ -0,0 +1,129 @@
+package com.capitalone.dashboard.collector;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builder for AQL {@code items.find(...)} queries.
+ *
+ * Criteria values are JSON escaped, and only the included fields are returned by Artifactory, so
+ * each caller lists the fields it reads instead of {@code include("*")}. Sorting is only added when
+ * asked for, it costs the Artifactory database a sort over all matching rows.
+ */
+public final class AqlQuery {
+    public static final String REPO = "repo";
+    public static final String PATH = "path";
+    public static final String NAME = "name";
+    public static final String TYPE = "type";
+    public static final String CREATED = "created";
+    public static final String CREATED_BY = "created_by";
+    public static final String MODIFIED = "modified";
+    public static final String MODIFIED_BY = "modified_by";
+    public static final String ACTUAL_MD5 = "actual_md5";
+    public static final String ACTUAL_SHA1 = "actual_sha1";
+    public static final String VIRTUAL_REPOS = "virtual_repos";
+    public static final String PROPERTY = "property";
+
+    private final List<String> criteria = new ArrayList<>();
+    private final List<String> includes = new ArrayList<>();
+    private final List<String> sortAsc = new ArrayList<>();
+    private long offset;
+    private int limit;
+
+    private AqlQuery() {
+    }
+
+    public static AqlQuery items() {
+        return new AqlQuery();
+    }
+
+    public AqlQuery eq(String field, String value) {
+        return where(field, "$eq", value);
+    }
+
+    public AqlQuery gt(String field, String value) {
+        return where(field, "$gt", value);
+    }
+
+    public AqlQuery lte(String field, String value) {
+        return where(field, "$lte", value);
+    }
+
+    public AqlQuery match(String field, String value) {
+        return where(field, "$match", value);
+    }
+
+    /**
+     * Adds an {@code $or} of the alternatives, each matching when all of its own criteria do.
+     */
+    public AqlQuery or(AqlQuery... alternatives) {
+        List<String> terms = new ArrayList<>(alternatives.length);
+        for (AqlQuery alternative : alternatives) {
+            terms.add('{' + String.join(",", alternative.criteria) + '}');
+        }
+        criteria.add(quote("$or") + ":[" + String.join(",", terms) + "]");
+        return this;
+    }
+
+    private AqlQuery where(String field, String operator, String value) {
+        criteria.add(quote(field) + ":{" + quote(operator) + ":" + quote(value) + "}");
+        return this;
+    }
+
+    public AqlQuery include(String... fields) {
+        includes.addAll(Arrays.asList(fields));
+        return this;
+    }
+
+    /**
+     * Sorts the rows ascending by the fields, replacing any sort set before.
+     */
+    public AqlQuery sortAsc(String... fields) {
+        sortAsc.clear();
+        sortAsc.addAll(Arrays.asList(fields));
+        return this;
+    }
+
+    /**
+     * Limits the query to a page of rows. Pages are only stable when the query is also sorted.
+     */
+    public AqlQuery page(long offset, int limit) {
+        this.offset = offset;
+        this.limit = limit;
+        return this;
+    }
+
+    public String build() {
+        StringBuilder query = new StringBuilder("items.find({").append(String.join(",", criteria)).append("})");
+        if (!includes.isEmpty()) {
+            query.append(".include(").append(quoteAll(includes)).append(')');
+        }
+        if (!sortAsc.isEmpty()) {
+            query.append(".sort({\"$asc\":[").append(quoteAll(sortAsc)).append("]})");
+        }
+        if (limit > 0) {
+            query.append(".offset(").append(offset).append(").limit(").append(limit).append(')');
+        }
+        return query.toString();
+    }
+
+    @Override
+    public String toString() {
+        return build();
+    }
+
+    private static String quoteAll(List<String> values) {
+        List<String> quoted = new ArrayList<>(values.size());
+        for (String value : values) {
+            quoted.add(quote(value));
+        }
+        return String.join(",", quoted);
+    }
+
+    private static String quote(String value) {
+        return '"' + new String(JsonStringEncoder.getInstance().quoteAsString(value)) + '"';
+    }
+}
@@ -0,0 +1,154 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.AqlItem;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser for AQL search responses.
+ *
+ * Each element of the {@code results} array is read into an {@link AqlItem} and handed to the
+ * consumer before the next one is read, so only one item is held in memory at a time.
+ */
+public final class AqlResultParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String RESULTS = "results";
+
+    private AqlResultParser() {
+    }
+
+    /**
+     * Parses an AQL response from the given stream. The stream is closed once parsing finishes.
+     *
+     * @param in       the response body
+     * @param consumer receives every result item, in response order
+     * @return the number of items handed to the consumer
+     */
+    public static int parse(InputStream in, Consumer<AqlItem> consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            return parse(parser, consumer);
+        }
+    }
+
+    public static int parse(String json, Consumer<AqlItem> consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return parse(parser, consumer);
+        }
+    }
+
+    private static int parse(JsonParser parser, Consumer<AqlItem> consumer) throws IOException {
+        JsonToken first = parser.nextToken();
+        // an empty response has no results
+        if (first == null) return 0;
+        if (first != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "AQL response is not a JSON object");
+        }
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (RESULTS.equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    consumer.accept(readItem(parser));
+                    count++;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return count;
+    }
+
+    private static AqlItem readItem(JsonParser parser) throws IOException {
+        AqlItem item = new AqlItem();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "repo":
+                    item.setRepo(parser.getValueAsString());
+                    break;
+                case "path":
+                    item.setPath(parser.getValueAsString());
+                    break;
+                case "name":
+                    item.setName(parser.getValueAsString());
+                    break;
+                case "type":
+                    item.setType(parser.getValueAsString());
+                    break;
+                case "created":
+                    item.setCreated(parser.getValueAsString());
+                    break;
+                case "created_by":
+                    item.setCreatedBy(parser.getValueAsString());
+                    break;
+                case "modified":
+                    item.setModified(parser.getValueAsString());
+                    break;
+                case "modified_by":
+                    item.setModifiedBy(parser.getValueAsString());
+                    break;
+                case "actual_md5":
+                    item.setActualMd5(parser.getValueAsString());
+                    break;
+                case "actual_sha1":
+                    item.setActualSha1(parser.getValueAsString());
+                    break;
+                case "virtual_repos":
+                    readVirtualRepos(parser, item);
+                    break;
+                case "properties":
+                    readProperties(parser, item);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return item;
+    }
+
+    private static void readVirtualRepos(JsonParser parser, AqlItem item) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            item.getVirtualRepos().add(parser.getValueAsString());
+        }
+    }
+
+    private static void readProperties(JsonParser parser, AqlItem item) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String key = null;
+            String value = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("key".equals(field)) {
+                    key = parser.getValueAsString();
+                } else if ("value".equals(field)) {
+                    value = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (key != null) {
+                // re-insert so a repeated key keeps its last position as well as its last value
+                item.getProperties().remove(key);
+                item.getProperties().put(key, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.capitalone.dashboard.collector;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
+/**
+ * Formats and parses the {@code yyyy-MM-dd'T'HH:mm:ss.SSSX} timestamps of AQL queries and results.
+ *
+ * Stateless and thread safe. Timestamps in Artifactory's usual layout (three fraction digits and a
+ * {@code Z}, {@code +HH}, {@code +HHMM} or {@code +HH:MM} offset) are parsed without allocating,
+ * anything else goes through a lenient {@link DateTimeFormatter}.
+ */
+public final class AqlTimestamps {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSX").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter FALLBACK = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            .optionalStart().appendOffset("+HH:MM", "Z").optionalEnd()
+            .optionalStart().appendOffset("+HHMM", "Z").optionalEnd()
+            .optionalStart().appendOffset("+HH", "Z").optionalEnd()
+            .toFormatter()
+            .withResolverStyle(ResolverStyle.STRICT);
+    private static final int FIXED_LENGTH = 23;
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int DAYS_0000_TO_1970 = 719468;
+    private static final int INVALID = Integer.MIN_VALUE;
+
+    private AqlTimestamps() {
+    }
+
+    /**
+     * @return the instant as an AQL timestamp in UTC
+     */
+    public static String format(long epochMillis) {
+        return FORMATTER.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /**
+     * @return the epoch milliseconds of the timestamp
+     * @throws DateTimeParseException if the text is not a timestamp
+     */
+    public static long parse(String text) {
+        long epochMillis = parseFixed(text);
+        if (epochMillis != Long.MIN_VALUE) return epochMillis;
+        return OffsetDateTime.parse(text, FALLBACK).toInstant().toEpochMilli();
+    }
+
+    // Long.MIN_VALUE when the text is not in the fixed layout, or its day might not exist in the month
+    private static long parseFixed(String text) {
+        if (text.length() <= FIXED_LENGTH || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':' || text.charAt(19) != '.') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        int millis = digits(text, 20, 3);
+        int offsetSeconds = offsetSeconds(text, FIXED_LENGTH);
+        // the fallback validates days past the 28th against the month
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 28 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0 || offsetSeconds == INVALID) {
+            return Long.MIN_VALUE;
+        }
+        long seconds = epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second - offsetSeconds;
+        return seconds * 1000 + millis;
+    }
+
+    private static int offsetSeconds(String text, int start) {
+        int length = text.length() - start;
+        char sign = text.charAt(start);
+        if (sign == 'Z') return length == 1 ? 0 : INVALID;
+        if (sign != '+' && sign != '-') return INVALID;
+        int hours;
+        int minutes = 0;
+        if (length == 3) {
+            hours = digits(text, start + 1, 2);
+        } else if (length == 5) {
+            hours = digits(text, start + 1, 2);
+            minutes = digits(text, start + 3, 2);
+        } else if (length == 6 && text.charAt(start + 3) == ':') {
+            hours = digits(text, start + 1, 2);
+            minutes = digits(text, start + 4, 2);
+        } else {
+            return INVALID;
+        }
+        if (hours < 0 || hours > 18 || minutes < 0 || minutes > 59) return INVALID;
+        int seconds = hours * 3600 + minutes * 60;
+        return sign == '-' ? -seconds : seconds;
+    }
+
+    // -1 when any of the characters is not a digit
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // days since 1970-01-01 of a proleptic Gregorian date, for years 0 and later
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (long) era * 146097 + dayOfEra - DAYS_0000_TO_1970;
+    }
+}
@@ -2,6 +2,7 @@ package com.capitalone.dashboard.collector;
 
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import com.capitalone.dashboard.model.ArtifactItem;
 import com.capitalone.dashboard.model.ArtifactoryRepo;
@@ -32,13 +33,72 @@ public interface ArtifactoryClient {
      */
     List<BinaryArtifact> getArtifacts(String instanceUrl, String repoName, long lastUpdated);
 
-    List<BaseArtifact> getArtifactItems(String instanceUrl, String repoName,String pattern, long lastUpdated);
+    List<BaseArtifact> getArtifactItems(String instanceUrl, String repoName, Pattern pattern, long lastUpdated);
 
-    List<BinaryArtifact> getArtifacts(ArtifactItem artifactItem, List<String> pattern);
+    /**
+     * Obtain the artifact items modified in the repo since {@code lastUpdated}, skipping the rows the watermark
+     * has already committed and observing the others
+     *
+     * @param instanceUrl server url
+     * @param repoName    repo name
+     * @param pattern     pattern the artifact paths are parsed with
+     * @param lastUpdated lower bound of the artifacts' modified time
+     * @param watermark   watermark of the repo, or null to keep every row
+     * @return the base artifacts found
+     */
+    List<BaseArtifact> getArtifactItems(String instanceUrl, String repoName, Pattern pattern, long lastUpdated, RepoWatermark watermark);
+
+    List<BinaryArtifact> getArtifacts(ArtifactItem artifactItem, List<Pattern> pattern);
 
-    Map<ArtifactItem,List<BinaryArtifact>> getLatestBinaryArtifacts(Collector collector, List<String> patterns, String instanceUrl, String repo);
+    Map<ArtifactItem,List<BinaryArtifact>> getLatestBinaryArtifacts(Collector collector, List<Pattern> patterns, String instanceUrl, String repo);
 
-    List<String> getPattern(String repoName);
+    /**
+     * Obtain the artifacts modified in the repo since {@code start}
+     *
+     * @param start       lower bound of the artifacts' modified time
+     * @param patterns    patterns the artifact paths are parsed with
+     * @param instanceUrl server url
+     * @param repo        repo name
+     * @return artifacts by artifact item, one binary artifact per row
+     */
+    Map<ArtifactItem,List<BinaryArtifact>> getLatestBinaryArtifacts(long start, List<Pattern> patterns, String instanceUrl, String repo);
+
+    /**
+     * Obtain a single page of the artifacts modified in the repo since {@code start}
+     *
+     * @param start       lower bound of the artifacts' modified time
+     * @param patterns    patterns the artifact paths are parsed with
+     * @param instanceUrl server url
+     * @param repo        repo name
+     * @param offset      number of rows to skip
+     * @param limit       maximum number of rows in the page
+     * @return artifacts of the page by artifact item, one binary artifact per row, or null if the page could not be fetched
+     */
+    Map<ArtifactItem,List<BinaryArtifact>> getLatestBinaryArtifacts(long start, List<Pattern> patterns, String instanceUrl, String repo, long offset, int limit);
+
+    /**
+     * Obtain the start of the collection window for the given last update, applying the configured lookback and offset
+     *
+     * @param lastUpdated timestamp of the last collection, 0 if never collected
+     * @return
+     */
+    long getLastUpdated(long lastUpdated);
+
+    /**
+     * Obtain the precompiled artifact patterns configured for a repo or sub-repo of a server
+     *
+     * @param instanceUrl server url
+     * @param repoName repo name
+     * @return the patterns, or null if none are configured for the repo on the server
+     */
+    List<Pattern> getPattern(String instanceUrl, String repoName);
+
+    /**
+     * Obtain the routing table built from the configured servers, repos and sub-repos
+     *
+     * @return the routing table
+     */
+    RepoRoutingTable getRoutingTable();
 
     ArtifactItem normalize(ArtifactItem artifactItem);
 
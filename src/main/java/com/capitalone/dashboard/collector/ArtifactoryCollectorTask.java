@@ -11,31 +11,40 @@ import com.capitalone.dashboard.model.Build;
 import com.capitalone.dashboard.model.Collector;
 import com.capitalone.dashboard.model.CollectorItem;
 import com.capitalone.dashboard.model.GenericCollectorItem;
-import com.capitalone.dashboard.model.RepoAndPattern;
+import com.capitalone.dashboard.model.RepoCheckpoint;
 import com.capitalone.dashboard.model.relation.RelatedCollectorItem;
 import com.capitalone.dashboard.repository.ArtifactItemRepository;
 import com.capitalone.dashboard.repository.ArtifactoryCollectorRepository;
 import com.capitalone.dashboard.repository.ArtifactoryRepoRepository;
 import com.capitalone.dashboard.repository.BaseCollectorRepository;
+import com.capitalone.dashboard.repository.ArtifactItemBulkRepository;
+import com.capitalone.dashboard.repository.BinaryArtifactBulkRepository;
 import com.capitalone.dashboard.repository.BinaryArtifactRepository;
 import com.capitalone.dashboard.repository.BuildRepository;
+import com.capitalone.dashboard.repository.CollectorItemBulkRepository;
 import com.capitalone.dashboard.repository.CollectorItemRepository;
+import com.capitalone.dashboard.repository.GenericCollectorItemBulkRepository;
 import com.capitalone.dashboard.repository.GenericCollectorItemRepository;
 import com.capitalone.dashboard.repository.RelatedCollectorItemRepository;
-import com.google.common.collect.Iterables;
-import org.apache.commons.collections.map.HashedMap;
+import com.capitalone.dashboard.repository.RepoCheckpointRepository;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -54,10 +63,17 @@ public class ArtifactoryCollectorTask extends CollectorTaskWithGenericItem<Artif
     private final ArtifactoryClient artifactoryClient;
     private final ArtifactorySettings artifactorySettings;
     private final BinaryArtifactRepository binaryArtifactRepository;
+    private final BinaryArtifactBulkRepository binaryArtifactBulkRepository;
+    private final ArtifactItemBulkRepository artifactItemBulkRepository;
     private final CollectorItemRepository collectorItemRepository;
+    private final CollectorItemBulkRepository collectorItemBulkRepository;
     private final GenericCollectorItemRepository genericCollectorItemRepository;
+    private final GenericCollectorItemBulkRepository genericCollectorItemBulkRepository;
     private final RelatedCollectorItemRepository relatedCollectorItemRepository;
     private final BuildRepository buildRepository;
+    private final RepoCheckpointRepository repoCheckpointRepository;
+    // capture patterns of generic items, compiled once
+    private final List<Pattern> capturePatterns;
     private AtomicInteger count = new AtomicInteger(0);
 
     @SuppressWarnings("PMD.ExcessiveParameterList")
@@ -66,24 +82,42 @@ public class ArtifactoryCollectorTask extends CollectorTaskWithGenericItem<Artif
                                     ArtifactoryCollectorRepository artifactoryCollectorRepository,
                                     ArtifactoryRepoRepository artifactoryRepoRepository,
                                     ArtifactItemRepository artifactItemRepository, BinaryArtifactRepository binaryArtifactRepository,
+                                    BinaryArtifactBulkRepository binaryArtifactBulkRepository,
+                                    ArtifactItemBulkRepository artifactItemBulkRepository,
                                     ArtifactoryClient artifactoryClient,
                                     ArtifactorySettings artifactorySettings,
                                     CollectorItemRepository collectorItemRepository,
+                                    CollectorItemBulkRepository collectorItemBulkRepository,
                                     GenericCollectorItemRepository genericCollectorItemRepository,
+                                    GenericCollectorItemBulkRepository genericCollectorItemBulkRepository,
                                     RelatedCollectorItemRepository relatedCollectorItemRepository,
-                                    BuildRepository buildRepository
+                                    BuildRepository buildRepository,
+                                    RepoCheckpointRepository repoCheckpointRepository
     ) {
         super(taskScheduler, "Artifactory", collectorItemRepository, genericCollectorItemRepository, relatedCollectorItemRepository);
         this.artifactoryCollectorRepository = artifactoryCollectorRepository;
         this.artifactoryRepoRepository = artifactoryRepoRepository;
         this.artifactItemRepository = artifactItemRepository;
         this.binaryArtifactRepository = binaryArtifactRepository;
+        this.binaryArtifactBulkRepository = binaryArtifactBulkRepository;
+        this.artifactItemBulkRepository = artifactItemBulkRepository;
         this.artifactoryClient = artifactoryClient;
         this.artifactorySettings = artifactorySettings;
         this.collectorItemRepository = collectorItemRepository;
+        this.collectorItemBulkRepository = collectorItemBulkRepository;
         this.genericCollectorItemRepository = genericCollectorItemRepository;
+        this.genericCollectorItemBulkRepository = genericCollectorItemBulkRepository;
         this.relatedCollectorItemRepository = relatedCollectorItemRepository;
         this.buildRepository = buildRepository;
+        this.repoCheckpointRepository = repoCheckpointRepository;
+        this.capturePatterns = compileCapturePatterns(artifactorySettings);
+    }
+
+    private static List<Pattern> compileCapturePatterns(ArtifactorySettings artifactorySettings) {
+        List<String> regexes = new ArrayList<>();
+        regexes.add(artifactorySettings.getCapturePattern());
+        if (artifactorySettings.getCapturePatterns() != null) regexes.addAll(artifactorySettings.getCapturePatterns());
+        return regexes.stream().filter(StringUtils::hasText).distinct().map(Pattern::compile).collect(Collectors.toList());
     }
 
     @Override
@@ -126,102 +160,106 @@ public class ArtifactoryCollectorTask extends CollectorTaskWithGenericItem<Artif
         Set<ObjectId> udId = new HashSet<>();
         udId.add(collector.getId());
         List<ArtifactoryRepo> existingRepos = artifactoryRepoRepository.findByCollectorIdIn(udId);
-        List<ArtifactoryRepo> activeRepos = new ArrayList<>();
+        List<ArtifactoryRepo> activeRepos = Collections.synchronizedList(new ArrayList<>());
         clean(collector, existingRepos);
         List<String> instanceUrls = collector.getArtifactoryServers();
-        instanceUrls.forEach(instanceUrl -> {
+        Outcome outcome = collectServers(instanceUrls, instanceUrl -> {
             long start = System.currentTimeMillis();
             logBanner(instanceUrl);
+            Outcome serverOutcome = Outcome.COMPLETED;
             if (instanceUrl.lastIndexOf('/') == instanceUrl.length() - 1) {
                 List<ArtifactoryRepo> repos = artifactoryClient.getRepos(instanceUrl);
                 log("Fetched repos", start);
                 activeRepos.addAll(repos);
                 addNewRepos(repos, existingRepos, collector);
-                addNewArtifacts(enabledRepos(collector, instanceUrl));
+                serverOutcome = addNewArtifacts(enabledRepos(collector, instanceUrl));
             } else {
                 LOGGER.error("Error with artifactory url: " + instanceUrl + ". Url does not end with '/'");
             }
             log("Finished", start);
+            return serverOutcome;
         });
+        if (outcome != Outcome.COMPLETED) {
+            // each repo keeps its own lastUpdated, so the repos that failed are collected from it again next run
+            LOGGER.error("Repo based collection did not complete, outcome=" + outcome);
+        }
     }
 
 
     protected void collectArtifactBased(ArtifactoryCollector collector) {
         Set<ObjectId> udId = new HashSet<>();
         udId.add(collector.getId());
-        processGenericItems(collector);
+        Map<ObjectId, Set<ObjectId>> artifactBuilds = processGenericItems(collector);
         // check whether to only collect enabled items or all
-        Set<ArtifactItem> existingItemsSet = artifactItemRepository.findByCollectorIdInSet(collector.getId());
+        // shared by the servers, items are keyed by instance so each server only touches its own
+        Map<ArtifactItem, ArtifactItem> existingItems = new ConcurrentHashMap<>();
+        artifactItemRepository.findByCollectorIdInSet(collector.getId()).forEach(item -> existingItems.putIfAbsent(item, item));
         List<String> instanceUrls = collector.getArtifactoryServers();
         long start = System.currentTimeMillis();
-        instanceUrls.forEach(instanceUrl -> {
+        Outcome outcome = collectServers(instanceUrls, instanceUrl -> {
             logBanner(instanceUrl);
-            if (instanceUrl.lastIndexOf('/') == instanceUrl.length() - 1) {
-                long lastUpdated = getLastUpdated(collector);
-                getRepos().forEach(repo -> {
-                    //Multiple patterns for the repo will be supported in future
-                    String pattern = (getPatterns().get(repo)).get(0);
-                    log("Collecting repository ====>>> " + repo);
-                    List<BaseArtifact> baseArtifacts = artifactoryClient.getArtifactItems(instanceUrl, repo, pattern, lastUpdated);
-                    addNewArtifactsItems(baseArtifacts, existingItemsSet, collector);
-                });
-                log("Fetched repos", start, getRepos().size());
-            } else {
+            if (instanceUrl.lastIndexOf('/') != instanceUrl.length() - 1) {
                 LOGGER.error("Error with artifactory url: " + instanceUrl + ". Url does not end with '/'");
+                return Outcome.COMPLETED;
             }
+            long lastUpdated = getLastUpdated(collector);
+            // only the repos configured for this server
+            List<String> repos = artifactoryClient.getRoutingTable().getRepos(instanceUrl);
+            Outcome serverOutcome = Outcome.COMPLETED;
+            for (String repo : repos) {
+                // a failed repo is logged and the remaining repos of the server are still collected
+                try {
+                    collectArtifactRepo(collector, instanceUrl, repo, lastUpdated, existingItems);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error collecting repo=" + repo + " from instance_url=" + instanceUrl, e);
+                    serverOutcome = Outcome.FAILED;
+                }
+            }
+            log("Fetched repos", start, repos.size());
+            return serverOutcome;
         });
+        // after collecting, so the artifacts collected by this run are linked as well
+        refreshData(artifactBuilds);
         log("Finished", start);
+        if (outcome != Outcome.COMPLETED) {
+            // leave lastExecuted as is so the next run covers the repos that failed or did not finish
+            LOGGER.error("Artifact based collection did not complete, outcome=" + outcome + ", lastExecuted is left at " + collector.getLastExecuted());
+            return;
+        }
         collector.setLastExecuted(start);
         artifactoryCollectorRepository.save(collector);
     }
 
+    private void collectArtifactRepo(ArtifactoryCollector collector, String instanceUrl, String repo, long lastUpdated,
+                                     Map<ArtifactItem, ArtifactItem> existingItems) {
+        //Multiple patterns for the repo will be supported in future
+        Pattern pattern = artifactoryClient.getPattern(instanceUrl, repo).get(0);
+        log("Collecting repository ====>>> " + repo);
+        RepoWatermark watermark = loadWatermark(collector, instanceUrl, repo);
+        long repoLastUpdated = watermark.hasWatermark() ? watermark.getWatermark() - artifactorySettings.getOffSet() : lastUpdated;
+        List<BaseArtifact> baseArtifacts = artifactoryClient.getArtifactItems(instanceUrl, repo, pattern, repoLastUpdated, watermark);
+        addNewArtifactsItems(baseArtifacts, existingItems, collector);
+        commitWatermark(watermark);
+    }
+
     protected  void collectHybridMode(ArtifactoryCollector collector){
         long start = System.currentTimeMillis();
         AtomicInteger count = new AtomicInteger();
-        Map<String, List<String>> subRepoMap = getSubRepos();
+        RepoRoutingTable routingTable = artifactoryClient.getRoutingTable();
         if (Objects.isNull(collector)) return;
-        String instanceUrl = artifactorySettings.getServers().get(0).getUrl();
         List<ArtifactItem> enabledArtifactItems = artifactItemRepository.findEnabledArtifactItems(collector.getId());
         LOGGER.info("Total enabled artifactItems=" + enabledArtifactItems.size());
-        getRepos().forEach(repo -> {
-            int counter = 0;
-            Map<ArtifactItem,List<BinaryArtifact>> processing = artifactoryClient.getLatestBinaryArtifacts(collector,getPattern(repo),instanceUrl,repo);
-            for (ArtifactItem artifactItem: enabledArtifactItems) {
-                try{
-                    artifactoryClient.normalize(artifactItem);
-                    String rootRepoName = replaceSubRepos(artifactItem.getRepoName(),subRepoMap);
-                    if(Objects.nonNull(rootRepoName)){
-                        artifactItem.setRepoName(rootRepoName);
-                    }
-                    if(processing.keySet().contains(artifactItem)){
-                        LOGGER.info("processing artifact=" + artifactItem.getArtifactName()+", repo="+artifactItem.getRepoName());
-                        List<BinaryArtifact> binaryArtifacts = processing.get(artifactItem);
-                        for (BinaryArtifact newBinaryArtifact: binaryArtifacts) {
-                            newBinaryArtifact.setCollectorItemId(artifactItem.getId());
-                            BinaryArtifact existingBinaryArtifact = binaryArtifactRepository.findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(artifactItem.getId(),
-                                    newBinaryArtifact.getArtifactVersion());
-                            if (Objects.nonNull(existingBinaryArtifact)) {
-                                // update existing binary artifact for that version and update timestamp
-                                updateExistingBinaryArtifact(newBinaryArtifact, existingBinaryArtifact);
-                                binaryArtifactRepository.save(newBinaryArtifact);
-                            } else {
-                                // get latest binary artifact for this artifact item with build info
-                                attachLatestBuildInfo(artifactItem, newBinaryArtifact);
-                                // save immediately to avoid creating multiple new BAs for same collectorItemId and artifactVersion
-                                binaryArtifactRepository.save(newBinaryArtifact);
-                            }
-                        }
-                        artifactItem.setLastUpdated(System.currentTimeMillis());
-                        artifactItemRepository.save(artifactItem);
-                        count.getAndIncrement();
-                        counter++;
-                    }
-                }catch (Exception e) {
-                        LOGGER.error(String.format("collect() : artifactName=%s & artifactRepo=%s, unexpected error occurred while collecting data from instance_url=%s with exception=%s", artifactItem.getArtifactName(), artifactItem.getRepoName(), instanceUrl, e.getClass().getCanonicalName()), e);
-                }
-            }
-            LOGGER.info("updated artifacts for repo=" + repo+", updatedCount="+counter);
+        // normalize and resolve root repos once up front, servers and repos collected in parallel only read the items from here on
+        Map<String, Map<String, List<ArtifactItem>>> itemsByServer = normalizeArtifactItems(enabledArtifactItems, routingTable);
+        Outcome outcome = collectServers(collector.getArtifactoryServers(), instanceUrl -> {
+            Map<String, List<ArtifactItem>> itemsByRepo = itemsByServer.getOrDefault(StringUtils.trimTrailingCharacter(instanceUrl, '/'), Collections.emptyMap());
+            return collectServerRepos(collector, instanceUrl, routingTable.getRepos(instanceUrl), itemsByRepo, count);
         });
+        if (outcome != Outcome.COMPLETED) {
+            // leave lastExecuted as is so the next run covers the repos that failed or did not finish
+            LOGGER.error("Hybrid collection did not complete, outcome=" + outcome + ", lastExecuted is left at " + collector.getLastExecuted());
+            return;
+        }
         long end = System.currentTimeMillis();
         long elapsedTime = (end-start) / 1000;
         LOGGER.info(String.format("ArtifactoryCollectorTask:collect stop, totalProcessSeconds=%d,  totalEnabledArtifacts=%d, totalUpdatedArtifacts=%d",
@@ -232,58 +270,277 @@ public class ArtifactoryCollectorTask extends CollectorTaskWithGenericItem<Artif
         artifactoryCollectorRepository.save(collector);
     }
 
-    private String replaceSubRepos(String repoName,Map<String,List<String>> subRepoMap){
-        if(subRepoMap.containsKey(repoName)) return repoName;
-         Map.Entry found = subRepoMap.entrySet().stream().filter(entry-> !CollectionUtils.isEmpty(entry.getValue()) && entry.getValue().contains(repoName)).filter(Objects::nonNull).findFirst().orElse(null);
-         if(Objects.nonNull(found)) return (String) found.getKey();
-         return null;
+    /**
+     * Outcome of collecting a set of servers or repos. lastExecuted only moves past a run that completed,
+     * a failed or interrupted repo is collected again from the same point by the next run.
+     */
+    enum Outcome {
+        COMPLETED, FAILED, INTERRUPTED;
+
+        // the worse of the two outcomes
+        Outcome and(Outcome other) {
+            return compareTo(other) >= 0 ? this : other;
+        }
     }
 
+    /**
+     * Collects the repos configured for a server, {@code parallelism} repos at a time. A repo that fails is
+     * logged and does not hold back the others.
+     *
+     * @return FAILED if any repo failed, INTERRUPTED if interrupted before every repo finished
+     */
+    private Outcome collectServerRepos(ArtifactoryCollector collector, String instanceUrl, List<String> repos,
+                                       Map<String, List<ArtifactItem>> itemsByRepo, AtomicInteger count) {
+        int parallelism = Math.max(1, Math.min(artifactorySettings.getParallelism(), repos.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder().setNameFormat("artifactory-repo-%d").setDaemon(true).build());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            repos.forEach(repo -> futures.add(executor.submit(() -> collectRepo(collector, repo, instanceUrl,
+                    itemsByRepo.getOrDefault(repo, Collections.emptyList()), count))));
+            Outcome outcome = Outcome.COMPLETED;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    LOGGER.error("Error collecting repo=" + repos.get(i) + " from instance_url=" + instanceUrl, e.getCause());
+                    outcome = Outcome.FAILED;
+                }
+            }
+            return outcome;
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while collecting repos from instance_url=" + instanceUrl, e);
+            Thread.currentThread().interrupt();
+            return Outcome.INTERRUPTED;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
+    /**
+     * Collects each server in its own thread. A server that fails is logged and does not hold back the others.
+     *
+     * @return the worst outcome of the servers, FAILED if a server threw, INTERRUPTED if interrupted before
+     * every server finished
+     */
+    private Outcome collectServers(List<String> instanceUrls, Function<String, Outcome> serverCollection) {
+        if (CollectionUtils.isEmpty(instanceUrls)) return Outcome.COMPLETED;
+        ExecutorService executor = Executors.newFixedThreadPool(instanceUrls.size(),
+                new ThreadFactoryBuilder().setNameFormat("artifactory-server-%d").setDaemon(true).build());
+        try {
+            List<Future<Outcome>> futures = new ArrayList<>();
+            instanceUrls.forEach(instanceUrl -> futures.add(executor.submit(() -> serverCollection.apply(instanceUrl))));
+            Outcome outcome = Outcome.COMPLETED;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    outcome = outcome.and(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    LOGGER.error("Error collecting instance_url=" + instanceUrls.get(i), e.getCause());
+                    outcome = outcome.and(Outcome.FAILED);
+                }
+            }
+            return outcome;
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while collecting instance_urls=" + instanceUrls, e);
+            Thread.currentThread().interrupt();
+            return Outcome.INTERRUPTED;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-    private void updateExistingBinaryArtifact(BinaryArtifact newBinaryArtifact, BinaryArtifact existingBinaryArtifact) {
-        // update all fields except build infos
-        if(!org.apache.commons.collections.CollectionUtils.isEmpty(existingBinaryArtifact.getBuildInfos())){
-            newBinaryArtifact.setBuildInfos(existingBinaryArtifact.getBuildInfos());
+    private void collectRepo(ArtifactoryCollector collector, String repo, String instanceUrl, List<ArtifactItem> enabledArtifactItems, AtomicInteger count) {
+        if (enabledArtifactItems.isEmpty()) {
+            // nothing in the repo could be matched to an enabled item
+            LOGGER.info("no enabled artifacts for repo=" + repo + ", skipping");
+            return;
         }
+        int counter;
+        RepoWatermark watermark = loadWatermark(collector, instanceUrl, repo);
+        if (artifactorySettings.getPageSize() > 0) {
+            counter = collectRepoPaged(collector, repo, instanceUrl, enabledArtifactItems, count, watermark);
+        } else {
+            Map<ArtifactItem,List<BinaryArtifact>> processing = artifactoryClient.getLatestBinaryArtifacts(getStart(collector, watermark),
+                    artifactoryClient.getPattern(instanceUrl, repo), instanceUrl, repo);
+            skipCommitted(processing, watermark);
+            counter = processLatestBinaryArtifacts(processing, enabledArtifactItems, instanceUrl, count);
+            commitWatermark(watermark);
+        }
+        LOGGER.info("updated artifacts for repo=" + repo+", updatedCount="+counter);
     }
 
+    /**
+     * Collects the repo one AQL page at a time. Each page is persisted and committed to the watermark before the
+     * next one is requested. An interrupted run resumes from the watermark rather than its offset: rows modified
+     * since then move within the old query, so the offset no longer points at the next page, while the overlap
+     * rows of the watermark skip what was already committed.
+     */
+    private int collectRepoPaged(ArtifactoryCollector collector, String repo, String instanceUrl, List<ArtifactItem> enabledArtifactItems,
+                                 AtomicInteger count, RepoWatermark watermark) {
+        int pageSize = artifactorySettings.getPageSize();
+        RepoCheckpoint checkpoint = watermark.getCheckpoint();
+        if (checkpoint.getOffset() > 0) {
+            LOGGER.info("resuming repo=" + repo + " from watermark=" + checkpoint.getWatermark() + " instead of offset=" + checkpoint.getOffset());
+        }
+        checkpoint.setStart(getStart(collector, watermark));
+        checkpoint.setOffset(0);
+        int counter = 0;
+        int rows;
+        do {
+            Map<ArtifactItem,List<BinaryArtifact>> processing = artifactoryClient.getLatestBinaryArtifacts(checkpoint.getStart(), artifactoryClient.getPattern(instanceUrl, repo),
+                    instanceUrl, repo, checkpoint.getOffset(), pageSize);
+            if (Objects.isNull(processing)) {
+                // the next run resumes from the pages committed so far
+                LOGGER.error("Could not fetch page for repo=" + repo + " at offset=" + checkpoint.getOffset());
+                repoCheckpointRepository.save(checkpoint);
+                return counter;
+            }
+            rows = processing.values().stream().mapToInt(List::size).sum();
+            skipCommitted(processing, watermark);
+            counter += processLatestBinaryArtifacts(processing, enabledArtifactItems, instanceUrl, count);
+            checkpoint.setOffset(checkpoint.getOffset() + rows);
+            commitWatermark(watermark);
+        } while (rows == pageSize);
+        // the watermark is kept for the next run
+        checkpoint.setOffset(0);
+        repoCheckpointRepository.save(checkpoint);
+        return counter;
+    }
+
+    private RepoWatermark loadWatermark(ArtifactoryCollector collector, String instanceUrl, String repo) {
+        RepoCheckpoint checkpoint = repoCheckpointRepository.findByCollectorIdAndInstanceUrlAndRepoName(collector.getId(), instanceUrl, repo);
+        if (Objects.isNull(checkpoint)) {
+            checkpoint = new RepoCheckpoint(collector.getId(), instanceUrl, repo, 0);
+        }
+        return new RepoWatermark(checkpoint, artifactorySettings.getOffSet(), artifactorySettings.getOverlapRowLimit());
+    }
 
-    private void attachLatestBuildInfo(ArtifactItem artifactItem, BinaryArtifact binaryArtifact) {
-        // get latest binary artifact associated with the artifact item by desc timestamp
-        BinaryArtifact latestWithBuildInfo = binaryArtifactRepository.findTopByCollectorItemIdAndBuildInfosIsNotEmptyOrderByTimestampDesc(artifactItem.getId(), Sort.by(Sort.Direction.DESC, "timestamp"));
-        if (Objects.isNull(latestWithBuildInfo)) return;
-        binaryArtifact.setBuildInfos(latestWithBuildInfo.getBuildInfos());
+    // repos with a watermark continue from it, others from the collector's last run
+    private long getStart(ArtifactoryCollector collector, RepoWatermark watermark) {
+        return artifactoryClient.getLastUpdated(watermark.hasWatermark() ? watermark.getWatermark() : collector.getLastExecuted());
     }
-    private List<String> getPattern(String repoName){
-        if(Objects.isNull(repoName)) return null;
-        List<String> pattern =  getRepoAndSubRepoPatterns().entrySet().stream().filter(entry -> repoName.contains(entry.getKey())).map(entry -> entry.getValue()).findFirst().orElse(null);
-        if (CollectionUtils.isEmpty(pattern)) return null;
-        return pattern;
+
+    // drops the rows the watermark already committed and observes the rest
+    private void skipCommitted(Map<ArtifactItem, List<BinaryArtifact>> processing, RepoWatermark watermark) {
+        int skipped = 0;
+        Iterator<List<BinaryArtifact>> entries = processing.values().iterator();
+        while (entries.hasNext()) {
+            List<BinaryArtifact> binaryArtifacts = entries.next();
+            int size = binaryArtifacts.size();
+            binaryArtifacts.removeIf(watermark::isCommitted);
+            skipped += size - binaryArtifacts.size();
+            binaryArtifacts.forEach(watermark::observe);
+            if (binaryArtifacts.isEmpty()) entries.remove();
+        }
+        if (skipped > 0) {
+            LOGGER.info("skipped " + skipped + " already committed artifacts of repo=" + watermark.getCheckpoint().getRepoName());
+        }
     }
 
-    private List<String> getAssociatedSubRepos(String repoName){
-        if(Objects.isNull(repoName)) return null;
-        List<String> subRepos =  getSubRepos().entrySet().stream().filter(entry -> repoName.contains(entry.getKey())).map(entry -> entry.getValue()).findFirst().orElse(null);
-        return subRepos;
+    // only called once the observed rows' writes are flushed
+    private void commitWatermark(RepoWatermark watermark) {
+        watermark.commit();
+        RepoCheckpoint checkpoint = watermark.getCheckpoint();
+        checkpoint.setLastUpdated(System.currentTimeMillis());
+        repoCheckpointRepository.save(checkpoint);
     }
 
-    private void refreshData(Map<ObjectId, Set<ObjectId>> artifactBuilds) {
-        artifactBuilds.forEach((artCollectorItemId, buildIdSet) -> {
-            Iterable<BinaryArtifact> binaryArtifacts = binaryArtifactRepository.findByCollectorItemId(artCollectorItemId);
-            List<Build> associatedBuilds = new ArrayList<>();
-            buildIdSet.forEach(buildId -> {
-                associatedBuilds.add((Build) buildRepository.findAllById(Collections.singleton(buildId)));
-            });
-            binaryArtifacts.forEach(binaryArtifact -> {
-                if (associatedBuilds != null) {
-                    binaryArtifact.addBuild(associatedBuilds.get(0));
-                    binaryArtifactRepository.saveAll(binaryArtifacts);
+    /**
+     * Normalizes the items and moves items of sub-repos to their root repo.
+     *
+     * @return the items by instance url, without trailing slashes, and root repo name
+     */
+    private Map<String, Map<String, List<ArtifactItem>>> normalizeArtifactItems(List<ArtifactItem> enabledArtifactItems, RepoRoutingTable routingTable) {
+        Map<String, Map<String, List<ArtifactItem>>> itemsByServer = new HashMap<>();
+        for (ArtifactItem artifactItem: enabledArtifactItems) {
+            try{
+                artifactoryClient.normalize(artifactItem);
+                String rootRepoName = routingTable.getRootRepo(artifactItem.getInstanceUrl(), artifactItem.getRepoName());
+                if(Objects.nonNull(rootRepoName)){
+                    artifactItem.setRepoName(rootRepoName);
                 }
-            });
+            }catch (Exception e) {
+                    LOGGER.error(String.format("collect() : artifactName=%s & artifactRepo=%s, unexpected error occurred while collecting data from instance_url=%s with exception=%s", artifactItem.getArtifactName(), artifactItem.getRepoName(), artifactItem.getInstanceUrl(), e.getClass().getCanonicalName()), e);
+            }
+            itemsByServer.computeIfAbsent(artifactItem.getInstanceUrl(), instanceUrl -> new HashMap<>())
+                    .computeIfAbsent(artifactItem.getRepoName(), repoName -> new ArrayList<>()).add(artifactItem);
+        }
+        return itemsByServer;
+    }
+
+    private int processLatestBinaryArtifacts(Map<ArtifactItem,List<BinaryArtifact>> processing, List<ArtifactItem> enabledArtifactItems,
+                                             String instanceUrl, AtomicInteger count) {
+        int counter = 0;
+        BinaryArtifactWriteBatch writeBatch = newWriteBatch();
+        // one aggregation for the existing BAs of all matched artifact items instead of a query per row; the
+        // keys of processing are built from the AQL rows and have no id, so the ids come from the stored items
+        writeBatch.prefetch(enabledArtifactItems.stream().filter(processing::containsKey).map(ArtifactItem::getId).collect(Collectors.toList()));
+        for (ArtifactItem artifactItem: enabledArtifactItems) {
+            try{
+                if(processing.keySet().contains(artifactItem)){
+                    LOGGER.info("processing artifact=" + artifactItem.getArtifactName()+", repo="+artifactItem.getRepoName());
+                    List<BinaryArtifact> binaryArtifacts = processing.get(artifactItem);
+                    for (BinaryArtifact newBinaryArtifact: binaryArtifacts) {
+                        newBinaryArtifact.setCollectorItemId(artifactItem.getId());
+                        BinaryArtifact existingBinaryArtifact = writeBatch.findLatest(artifactItem.getId(),
+                                newBinaryArtifact.getArtifactVersion());
+                        if (Objects.nonNull(existingBinaryArtifact)) {
+                            // update existing binary artifact for that version and update timestamp
+                            updateExistingBinaryArtifact(newBinaryArtifact, existingBinaryArtifact);
+                        } else {
+                            // get latest binary artifact for this artifact item with build info
+                            writeBatch.attachLatestBuildInfos(artifactItem.getId(), newBinaryArtifact);
+                        }
+                        // added BAs are found by later rows, so only one new BA is created per collectorItemId and artifactVersion
+                        writeBatch.add(newBinaryArtifact);
+                    }
+                    artifactItem.setLastUpdated(System.currentTimeMillis());
+                    artifactItemRepository.save(artifactItem);
+                    count.getAndIncrement();
+                    counter++;
+                }
+            }catch (Exception e) {
+                    LOGGER.error(String.format("collect() : artifactName=%s & artifactRepo=%s, unexpected error occurred while collecting data from instance_url=%s with exception=%s", artifactItem.getArtifactName(), artifactItem.getRepoName(), instanceUrl, e.getClass().getCanonicalName()), e);
+            }
+        }
+        // the page is only done once its artifacts are written
+        writeBatch.flush();
+        return counter;
+    }
+
+    private BinaryArtifactWriteBatch newWriteBatch() {
+        return new BinaryArtifactWriteBatch(binaryArtifactRepository, binaryArtifactBulkRepository, artifactorySettings.getWriteBatchSize());
+    }
 
 
+    private void updateExistingBinaryArtifact(BinaryArtifact newBinaryArtifact, BinaryArtifact existingBinaryArtifact) {
+        // update all fields except build infos
+        if(!org.apache.commons.collections.CollectionUtils.isEmpty(existingBinaryArtifact.getBuildInfos())){
+            newBinaryArtifact.setBuildInfos(existingBinaryArtifact.getBuildInfos());
+        }
+    }
+
+
+    /**
+     * Links the builds to the binary artifacts of their artifact collector items. The builds of all items are
+     * loaded with one query and each item's artifacts are updated together in one bulk write.
+     *
+     * @param artifactBuilds build ids by artifact collector item id
+     */
+    private void refreshData(Map<ObjectId, Set<ObjectId>> artifactBuilds) {
+        Set<ObjectId> buildIds = new HashSet<>();
+        artifactBuilds.values().forEach(buildIds::addAll);
+        if (buildIds.isEmpty()) return;
+        Map<ObjectId, Build> buildsById = new HashMap<>();
+        buildRepository.findAllById(buildIds).forEach(build -> buildsById.put(build.getId(), build));
+        Map<ObjectId, List<Build>> buildsByCollectorItemId = new HashMap<>();
+        artifactBuilds.forEach((artCollectorItemId, buildIdSet) -> {
+            List<Build> associatedBuilds = buildIdSet.stream().map(buildsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+            if (!associatedBuilds.isEmpty()) {
+                buildsByCollectorItemId.put(artCollectorItemId, associatedBuilds);
+            }
         });
+        binaryArtifactBulkRepository.addBuilds(buildsByCollectorItemId);
     }
 
     /**
@@ -298,17 +555,9 @@ public class ArtifactoryCollectorTask extends CollectorTaskWithGenericItem<Artif
 
         // find the repos to collect from each server url above
         List<Set<String>> repoNamesToBeCollected = new ArrayList<Set<String>>();
-        List<String[]> allRepos = new ArrayList<>();
-        artifactorySettings.getServers().forEach(serverSetting -> {
-            allRepos.add((String[]) getRepoAndPatternsForServ(serverSetting.getRepoAndPatterns()).keySet().toArray());
-        });
-        for (int i = 0; i < allRepos.size(); i++) {
-            Set<String> reposSet = new HashSet<>();
-            if (allRepos.get(i) != null) {
-                reposSet.addAll(Arrays.asList(allRepos.get(i)));
-            }
-            repoNamesToBeCollected.add(reposSet);
-        }
+        RepoRoutingTable routingTable = artifactoryClient.getRoutingTable();
+        artifactorySettings.getServers().forEach(serverSetting ->
+                repoNamesToBeCollected.add(new HashSet<>(routingTable.getRepos(serverSetting.getUrl()))));
 
         assert (serversToBeCollected.size() == repoNamesToBeCollected.size());
 
@@ -380,26 +629,47 @@ public class ArtifactoryCollectorTask extends CollectorTaskWithGenericItem<Artif
      *
      * @param enabledRepos list of enabled {@link ArtifactoryRepo}s
      */
-    private void addNewArtifacts(List<ArtifactoryRepo> enabledRepos) {
+    /**
+     * Adds the new artifacts of each repo. A repo that fails is logged and keeps its lastUpdated, the others go on.
+     *
+     * @return FAILED if any repo failed
+     */
+    private Outcome addNewArtifacts(List<ArtifactoryRepo> enabledRepos) {
         long start = System.currentTimeMillis();
+        Outcome outcome = Outcome.COMPLETED;
+        List<ArtifactoryRepo> collectedRepos = new ArrayList<>();
 
         for (ArtifactoryRepo repo : enabledRepos) {
-            for (BinaryArtifact artifact : nullSafe(artifactoryClient.getArtifacts(repo.getInstanceUrl(), repo.getRepoName(), repo.getLastUpdated()))) {
-                if (artifact != null && isNewArtifact(repo, artifact)) {
-                    artifact.setCollectorItemId(repo.getId());
-                    binaryArtifactRepository.save(artifact);
-                    count.getAndIncrement();
+            try {
+                // the attributes of the repo's stored artifacts are loaded once instead of queried per artifact
+                Set<AttributeKey> existingKeys = new HashSet<>();
+                binaryArtifactBulkRepository.findAttributesByCollectorItemId(repo.getId()).forEach(artifact -> existingKeys.add(new AttributeKey(artifact)));
+                BinaryArtifactWriteBatch writeBatch = newWriteBatch();
+                int added = 0;
+                for (BinaryArtifact artifact : nullSafe(artifactoryClient.getArtifacts(repo.getInstanceUrl(), repo.getRepoName(), repo.getLastUpdated()))) {
+                    if (artifact != null && existingKeys.add(new AttributeKey(artifact))) {
+                        artifact.setCollectorItemId(repo.getId());
+                        writeBatch.add(artifact);
+                        added++;
+                    }
                 }
+                writeBatch.flush();
+                count.addAndGet(added);
+                collectedRepos.add(repo);
+                log("New artifacts repo=" + repo.getRepoName(), start, added);
+            } catch (RuntimeException e) {
+                LOGGER.error("Error collecting repo=" + repo.getRepoName() + " from instance_url=" + repo.getInstanceUrl(), e);
+                outcome = Outcome.FAILED;
             }
         }
 
-        // Iterate through list of repos and update the lastUpdated timestamp
-        for (ArtifactoryRepo repo : enabledRepos) {
+        // Iterate through list of collected repos and update the lastUpdated timestamp
+        for (ArtifactoryRepo repo : collectedRepos) {
             repo.setLastUpdated(start);
         }
         // We set the last update time so need to save it
-        artifactoryRepoRepository.saveAll(enabledRepos);
-        log("New artifacts", start, count.get());
+        artifactoryRepoRepository.saveAll(collectedRepos);
+        return outcome;
     }
 
 
@@ -407,45 +677,60 @@ public class ArtifactoryCollectorTask extends CollectorTaskWithGenericItem<Artif
      * Add any new {@link ArtifactItem}s
      */
 
-    private void addNewArtifactsItems(List<BaseArtifact> baseArtifacts, Set<ArtifactItem> existingArtifactItems, ArtifactoryCollector collector) {
+    // existingArtifactItems maps each item's unique options to the persisted item and gains the new items
+    private void addNewArtifactsItems(List<BaseArtifact> baseArtifacts, Map<ArtifactItem, ArtifactItem> existingArtifactItems, ArtifactoryCollector collector) {
         long start = System.currentTimeMillis();
-        List<BinaryArtifact> binaryArtifacts = new ArrayList<>();
+        List<ArtifactItem> newArtifactItems = new ArrayList<>();
+        Set<ArtifactItem> touchedArtifactItems = new LinkedHashSet<>();
+        Map<BaseArtifact, ArtifactItem> persistedItems = new IdentityHashMap<>();
         for (BaseArtifact baseArtifact : baseArtifacts) {
             ArtifactItem newArtifactItem = baseArtifact.getArtifactItem();
-            if (newArtifactItem != null && !existingArtifactItems.contains(newArtifactItem)) {
+            if (newArtifactItem == null) continue;
+            ArtifactItem persisted = existingArtifactItems.get(newArtifactItem);
+            if (persisted == null) {
                 // changed to 'start' instead of System.currentTimeMillis()
                 newArtifactItem.setLastUpdated(start);
                 newArtifactItem.setCollectorId(collector.getId());
-                newArtifactItem = artifactItemRepository.save(newArtifactItem);
-                existingArtifactItems.add(newArtifactItem);
+                newArtifactItems.add(newArtifactItem);
+                existingArtifactItems.put(newArtifactItem, newArtifactItem);
+                persisted = newArtifactItem;
                 count.getAndIncrement();
+            } else if (!CollectionUtils.isEmpty(baseArtifact.getBinaryArtifacts())) {
+                touchedArtifactItems.add(persisted);
             }
-            List<BinaryArtifact> binaryArtifactsAssociated = baseArtifact.getBinaryArtifacts();
-            if (!CollectionUtils.isEmpty(binaryArtifactsAssociated) ) {
-                for (BinaryArtifact b:binaryArtifactsAssociated) {
-                    ArtifactItem found = existingArtifactItems.stream().filter(newArtifactItem::equals).findAny().orElse(null);
-                    ObjectId collectorItemId = newArtifactItem.getId()!=null? newArtifactItem.getId(): getExistingArtifactIdAndSave(found);
-                    b.setCollectorItemId(collectorItemId);
-                    binaryArtifacts.add(b);
-                }
+            persistedItems.put(baseArtifact, persisted);
+        }
+        // new items are inserted together and get their ids before the binary artifacts refer to them
+        if (!newArtifactItems.isEmpty()) {
+            artifactItemRepository.saveAll(newArtifactItems);
+        }
+        touchArtifactItems(touchedArtifactItems);
 
+        List<BinaryArtifact> binaryArtifacts = new ArrayList<>();
+        persistedItems.forEach((baseArtifact, persisted) -> {
+            for (BinaryArtifact b : baseArtifact.getBinaryArtifacts()) {
+                b.setCollectorItemId(persisted.getId());
+                binaryArtifacts.add(b);
             }
-
-        }
+        });
         if (!binaryArtifacts.isEmpty()) {
             LOGGER.info("Saving " + binaryArtifacts.size() + " binary artifacts");
-            binaryArtifacts.forEach(binaryArtifact -> binaryArtifactRepository.save(binaryArtifact));
+            BinaryArtifactWriteBatch writeBatch = newWriteBatch();
+            binaryArtifacts.forEach(writeBatch::add);
+            writeBatch.flush();
         }
         log("New artifacts items", start, count.get());
     }
 
-    private ObjectId getExistingArtifactIdAndSave(ArtifactItem found) {
-        if(Objects.nonNull(found)){
-            found.setLastUpdated(System.currentTimeMillis());
-            artifactItemRepository.save(found);
-            return found.getId();
+    private void touchArtifactItems(Collection<ArtifactItem> artifactItems) {
+        if (artifactItems.isEmpty()) return;
+        long lastUpdated = System.currentTimeMillis();
+        List<ObjectId> ids = new ArrayList<>();
+        for (ArtifactItem artifactItem : artifactItems) {
+            artifactItem.setLastUpdated(lastUpdated);
+            ids.add(artifactItem.getId());
         }
-        return null;
+        artifactItemBulkRepository.updateLastUpdated(ids, lastUpdated);
     }
 
     private List<BinaryArtifact> nullSafe(List<BinaryArtifact> builds) {
@@ -457,66 +742,42 @@ public class ArtifactoryCollectorTask extends CollectorTaskWithGenericItem<Artif
         return artifactoryRepoRepository.findEnabledArtifactoryRepos(collector.getId(), instanceUrl);
     }
 
-    private boolean isNewArtifact(ArtifactoryRepo repo, BinaryArtifact artifact) {
-        return Iterables.size(binaryArtifactRepository.findByAttributes(repo.getId(),
-                artifact.getArtifactGroupId(), artifact.getArtifactModule(), artifact.getArtifactVersion(), artifact.getArtifactName(),
-                artifact.getArtifactClassifier(), artifact.getArtifactExtension())) == 0;
-    }
-
-    private List<String> getRepos() {
-        List<String> repos = new ArrayList<>();
-        artifactorySettings.getServers().forEach(serverSetting -> {
-            repos.addAll(getRepoAndPatternsForServ(serverSetting.getRepoAndPatterns()).keySet());
-        });
-        return repos;
-    }
-
-    private Map<String, List<String>> getPatterns() {
-        Map<String, List<String>> patterns = new HashedMap();
-        artifactorySettings.getServers().forEach(serverSetting -> {
-            patterns.putAll(getRepoAndPatternsForServ(serverSetting.getRepoAndPatterns()));
-        });
-        return patterns;
-    }
-
-    private Map<String, List<String>> getRepoAndSubRepoPatterns() {
-        Map<String, List<String>> patterns = new HashedMap();
-        artifactorySettings.getServers().forEach(serverSetting -> {
-            patterns.putAll(getRepoAndPatternsForServ(serverSetting.getRepoAndPatterns()));
-            patterns.putAll(getSubRepoPatternsForServ(serverSetting.getRepoAndPatterns()));
-        });
-        return patterns;
-    }
-
-    private static Map<String, List<String>> getRepoAndPatternsForServ(List<RepoAndPattern> repoAndPatterns) {
-        return repoAndPatterns.stream().collect(Collectors.toMap(RepoAndPattern::getRepo, RepoAndPattern::getPatterns));
-    }
-
-    private static Map<String, List<String>> getSubRepoPatternsForServ(List<RepoAndPattern> repoAndPatterns) {
-        Map<String, List<String>> subRepoToPattern = new HashMap<>();
-        Map<List<String>, List<String>> subReposListToPatterns = repoAndPatterns.stream()
-                .filter(repoAndPattern -> !CollectionUtils.isEmpty(repoAndPattern.getSubRepos()))
-                .collect(Collectors.toMap(RepoAndPattern::getSubRepos, RepoAndPattern::getPatterns));
-        subReposListToPatterns.forEach((subRepos, patterns) -> subRepos.forEach(subRepo -> subRepoToPattern.put(subRepo, patterns)));
-        return subRepoToPattern;
-    }
-
-    private Map<String, List<String>> getSubRepos() {
-        Map<String, List<String>> allSubRepos = new HashedMap();
-        artifactorySettings.getServers().forEach(serverSetting -> {
-            allSubRepos.putAll(getSubReposForServ(serverSetting.getRepoAndPatterns()));
-        });
-        return allSubRepos;
+    // the attributes BinaryArtifactRepository.findByAttributes matches an artifact of a repo by, compared as is
+    private static final class AttributeKey {
+        private final String groupId;
+        private final String module;
+        private final String version;
+        private final String name;
+        private final String classifier;
+        private final String extension;
+        private final int hash;
+
+        private AttributeKey(BinaryArtifact artifact) {
+            this.groupId = artifact.getArtifactGroupId();
+            this.module = artifact.getArtifactModule();
+            this.version = artifact.getArtifactVersion();
+            this.name = artifact.getArtifactName();
+            this.classifier = artifact.getArtifactClassifier();
+            this.extension = artifact.getArtifactExtension();
+            this.hash = Objects.hash(groupId, module, version, name, classifier, extension);
+        }
 
-    }
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof AttributeKey)) return false;
+            AttributeKey that = (AttributeKey) o;
+            return hash == that.hash && Objects.equals(groupId, that.groupId) && Objects.equals(module, that.module)
+                    && Objects.equals(version, that.version) && Objects.equals(name, that.name)
+                    && Objects.equals(classifier, that.classifier) && Objects.equals(extension, that.extension);
+        }
 
-    private static Map<String, List<String>> getSubReposForServ(List<RepoAndPattern> repoAndPatterns) {
-        return repoAndPatterns.stream()
-                .filter(repoAndPattern -> !CollectionUtils.isEmpty(repoAndPattern.getSubRepos()))
-                .collect(Collectors.toMap(RepoAndPattern::getRepo, RepoAndPattern::getSubRepos));
+        @Override
+        public int hashCode() {
+            return hash;
+        }
     }
 
-
     private long getLastUpdated(Collector collector) {
         if(!Objects.isNull(collector.getLastExecuted())) {
             return collector.getLastExecuted();
@@ -525,53 +786,86 @@ public class ArtifactoryCollectorTask extends CollectorTaskWithGenericItem<Artif
         }
     }
 
+    /**
+     * Relates the unprocessed generic items to the artifact collector items their raw data captures. All the
+     * (artifactName, path) pairs are resolved with one query, then the related items, the pushed flags and the
+     * process times are each written in one batch. Generic items that capture no artifact name stay unprocessed.
+     *
+     * @return build ids by artifact collector item id
+     */
     protected Map<ObjectId, Set<ObjectId>> processGenericItems(ArtifactoryCollector collector) {
         List<GenericCollectorItem> genericCollectorItems = genericCollectorItemRepository.findAllByToolNameAndProcessTimeEquals(collector.getName(), 0L);
         Map<ObjectId, Set<ObjectId>> artifactBuilds = new HashMap<>();
+        Map<GenericCollectorItem, List<String>> captures = new LinkedHashMap<>();
         genericCollectorItems.forEach(gci -> {
-            String capture = capturePattern(gci,ARTIFACT_NAME).trim();
-            String captureGroupId = capturePattern(gci,ARTIFACT_GROUP).trim();
-            String capturePath = captureGroupId+ SLASH +capture;
+            Matcher match = captureMatcher(gci);
+            String capture = match == null ? "" : match.group(ARTIFACT_NAME).trim();
             if (StringUtils.isEmpty(capture)) {
                 return;
             }
-            List<CollectorItem> artifactCollectorItems = collectorItemRepository.findByArtifactNameAndPath(capture,capturePath);
-            artifactCollectorItems.forEach(
-                    item -> {
-                        if (!artifactBuilds.containsKey(item.getId()) || CollectionUtils.isEmpty(artifactBuilds.get(item))) {
-                            artifactBuilds.put(item.getId(), new HashSet<>());
-                        }
-                        //Save as related item. Related Item event listener will process it.
-                        artifactBuilds.get(item.getId()).add(gci.getBuildId());
-                        RelatedCollectorItem relatedCollectorItem = new RelatedCollectorItem();
-                        relatedCollectorItem.setCreationTime(System.currentTimeMillis());
-                        relatedCollectorItem.setLeft(gci.getRelatedCollectorItem());
-                        relatedCollectorItem.setRight(item.getId());
-                        relatedCollectorItem.setSource(this.getClass().toString());
-                        relatedCollectorItem.setReason(Reason.ARTIFACT_REASON.getAction());
-                        relatedCollectorItemRepository.save(relatedCollectorItem);
-                        //set collectorItem as pushed true
-                        item.setPushed(true);
-                        collectorItemRepository.save(item);
-                    }
-            );
+            String capturePath = match.group(ARTIFACT_GROUP).trim() + SLASH + capture;
+            captures.put(gci, Arrays.asList(capture, capturePath));
+        });
+        if (captures.isEmpty()) return artifactBuilds;
 
-            // Save generic item as processed, ie, processing time non zero.
-            gci.setProcessTime(System.currentTimeMillis());
-            genericCollectorItemRepository.save(gci);
+        Set<String> names = new HashSet<>();
+        Set<String> paths = new HashSet<>();
+        captures.values().forEach(capture -> {
+            names.add(capture.get(0));
+            paths.add(capture.get(1));
+        });
+        // the query matches any name with any path, only the captured pairs are related
+        Map<List<String>, List<CollectorItem>> itemsByCapture = new HashMap<>();
+        collectorItemBulkRepository.findByArtifactNamesAndPaths(names, paths).forEach(item -> {
+            List<String> key = Arrays.asList(Objects.toString(item.getOptions().get("artifactName"), null),
+                    Objects.toString(item.getOptions().get("path"), null));
+            itemsByCapture.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+        });
+
+        List<RelatedCollectorItem> relatedCollectorItems = new ArrayList<>();
+        Set<ObjectId> pushedIds = new HashSet<>();
+        List<ObjectId> processedIds = new ArrayList<>();
+        captures.forEach((gci, capture) -> {
+            itemsByCapture.getOrDefault(capture, Collections.emptyList()).forEach(item -> {
+                artifactBuilds.computeIfAbsent(item.getId(), id -> new HashSet<>()).add(gci.getBuildId());
+                //Save as related item. Related Item event listener will process it.
+                RelatedCollectorItem relatedCollectorItem = new RelatedCollectorItem();
+                relatedCollectorItem.setCreationTime(System.currentTimeMillis());
+                relatedCollectorItem.setLeft(gci.getRelatedCollectorItem());
+                relatedCollectorItem.setRight(item.getId());
+                relatedCollectorItem.setSource(this.getClass().toString());
+                relatedCollectorItem.setReason(Reason.ARTIFACT_REASON.getAction());
+                relatedCollectorItems.add(relatedCollectorItem);
+                pushedIds.add(item.getId());
+            });
+            processedIds.add(gci.getId());
         });
+
+        if (!relatedCollectorItems.isEmpty()) {
+            relatedCollectorItemRepository.saveAll(relatedCollectorItems);
+        }
+        //set collectorItems as pushed true
+        collectorItemBulkRepository.setPushed(pushedIds);
+        // Save generic items as processed, ie, processing time non zero. Last, so a failed run retries them.
+        genericCollectorItemBulkRepository.updateProcessTime(processedIds, System.currentTimeMillis());
         return artifactBuilds;
     }
 
     protected String capturePattern(GenericCollectorItem gci,int group) {
-        List<String> regex = Arrays.asList(artifactorySettings.getCapturePattern());
-        return regex
-                .stream().map(Pattern::compile)
-                .map(p -> p.matcher(gci.getRawData()))
-                .filter(Matcher::find)
-                .findFirst()
-                .map(match -> match.group(group))
-                .orElse("");
+        Matcher match = captureMatcher(gci);
+        return match == null ? "" : match.group(group);
+    }
+
+    /**
+     * @return the match of the first capture pattern found in the raw data, or null if none is
+     */
+    private Matcher captureMatcher(GenericCollectorItem gci) {
+        if (gci.getRawData() == null) return null;
+        for (Pattern pattern : capturePatterns) {
+            Matcher matcher = pattern.matcher(gci.getRawData());
+            if (matcher.find()) return matcher;
+        }
+        return null;
     }
 
 
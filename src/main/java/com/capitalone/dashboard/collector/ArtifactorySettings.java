@@ -19,9 +19,31 @@ public class ArtifactorySettings {
     String endpoint;
     long offSet;
     String capturePattern;
+    // further capture patterns for generic items, tried in order after capturePattern
+    List<String> capturePatterns;
     long timeInterval;
     String timeUnit;
     boolean collectEnabledItemsOnly;
+    // rows per AQL page; 0 fetches everything since the last run in a single query
+    int pageSize;
+    // number of repos collected concurrently in HYBRID_MODE
+    int parallelism = 1;
+    // http transport, "httpclient" for the JDK client; the core RestClient is used otherwise
+    String transport;
+    // connect and read timeouts of the JDK client in milliseconds, 0 for none
+    int connectTimeout;
+    int readTimeout;
+    boolean http2 = true;
+    // binary artifacts written to mongo per bulk operation
+    int writeBatchSize = 500;
+    // AQL time windows queried concurrently per instance in ARTIFACT_BASED mode
+    int windowParallelism = 1;
+    // collector items refreshed concurrently by /artifactory/refresh jobs
+    int refreshParallelism = 4;
+    // milliseconds /artifactory/artifactByVersion results are cached for, 0 disables the cache
+    long versionCacheTtl = 300000;
+    // committed rows kept per repo checkpoint to skip in the next run's overlap
+    int overlapRowLimit = 50000;
 
     public String getCron() {
         return cron;
@@ -71,6 +93,10 @@ public class ArtifactorySettings {
         this.capturePattern = capturePattern;
     }
 
+    public List<String> getCapturePatterns() { return capturePatterns; }
+
+    public void setCapturePatterns(List<String> capturePatterns) { this.capturePatterns = capturePatterns; }
+
     public long getTimeInterval() { return timeInterval; }
 
     public void setTimeInterval(int timeInterval) { this.timeInterval = timeInterval; }
@@ -83,4 +109,48 @@ public class ArtifactorySettings {
 
     public void setCollectEnabledItemsOnly(boolean collectEnabledItemsOnly) { this.collectEnabledItemsOnly = collectEnabledItemsOnly; }
 
+    public int getPageSize() { return pageSize; }
+
+    public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+
+    public int getParallelism() { return parallelism; }
+
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+
+    public String getTransport() { return transport; }
+
+    public void setTransport(String transport) { this.transport = transport; }
+
+    public int getConnectTimeout() { return connectTimeout; }
+
+    public void setConnectTimeout(int connectTimeout) { this.connectTimeout = connectTimeout; }
+
+    public int getReadTimeout() { return readTimeout; }
+
+    public void setReadTimeout(int readTimeout) { this.readTimeout = readTimeout; }
+
+    public boolean isHttp2() { return http2; }
+
+    public void setHttp2(boolean http2) { this.http2 = http2; }
+
+    public int getWriteBatchSize() { return writeBatchSize; }
+
+    public void setWriteBatchSize(int writeBatchSize) { this.writeBatchSize = writeBatchSize; }
+
+    public int getWindowParallelism() { return windowParallelism; }
+
+    public void setWindowParallelism(int windowParallelism) { this.windowParallelism = windowParallelism; }
+
+    public int getRefreshParallelism() { return refreshParallelism; }
+
+    public void setRefreshParallelism(int refreshParallelism) { this.refreshParallelism = refreshParallelism; }
+
+    public long getVersionCacheTtl() { return versionCacheTtl; }
+
+    public void setVersionCacheTtl(long versionCacheTtl) { this.versionCacheTtl = versionCacheTtl; }
+
+    public int getOverlapRowLimit() { return overlapRowLimit; }
+
+    public void setOverlapRowLimit(int overlapRowLimit) { this.overlapRowLimit = overlapRowLimit; }
+
 }
@@ -0,0 +1,54 @@
+package com.capitalone.dashboard.collector;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends the HTTP requests of the {@link DefaultArtifactoryClient}.
+ *
+ * Implementations report failures the way the Spring {@code RestTemplate} does: a 4xx response raises
+ * {@link org.springframework.web.client.HttpClientErrorException}, a 5xx response raises
+ * {@link org.springframework.web.client.HttpServerErrorException} and an I/O error raises
+ * {@link org.springframework.web.client.ResourceAccessException}.
+ */
+public interface ArtifactoryTransport {
+
+    /**
+     * Transport over the JDK {@link java.net.http.HttpClient}, see {@link HttpClientTransport}
+     */
+    String HTTP_CLIENT = "httpclient";
+
+    ResponseEntity<String> get(String url, HttpHeaders headers);
+
+    ResponseEntity<String> post(String url, HttpHeaders headers, String body);
+
+    /**
+     * Posts the body and hands the response body to the reader as a stream, which the reader consumes before
+     * it returns. Failures are reported as for {@link #post(String, HttpHeaders, String)}, before the reader is
+     * called; an exception of the reader is passed on.
+     *
+     * By default the response is read through {@link #post(String, HttpHeaders, String)} and streamed from the
+     * buffered body.
+     *
+     * @return what the reader returned, or null if there was no response
+     */
+    default <T> T post(String url, HttpHeaders headers, String body, BodyReader<T> reader) throws IOException {
+        ResponseEntity<String> response = post(url, headers, body);
+        if (response == null) return null;
+        String responseBody = response.getBody() == null ? "" : response.getBody();
+        return reader.read(new ByteArrayInputStream(responseBody.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Reads a response body, the stream is closed by the transport.
+     */
+    @FunctionalInterface
+    interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+}
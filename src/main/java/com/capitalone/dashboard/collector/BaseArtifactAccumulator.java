@@ -0,0 +1,83 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.ArtifactItem;
+import com.capitalone.dashboard.model.BaseArtifact;
+import com.capitalone.dashboard.model.BinaryArtifact;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the {@link BaseArtifact}s found during artifact discovery.
+ *
+ * Base artifacts are keyed by the case insensitive artifact name, repo and path of their artifact
+ * item, and their binary artifacts by name and version, so adding a row is a pair of hash lookups
+ * instead of scans over everything collected so far. The resulting list keeps the order in which
+ * base artifacts and binary artifacts were first seen. Not thread safe.
+ */
+public class BaseArtifactAccumulator {
+    private final List<BaseArtifact> baseArtifacts = new ArrayList<>();
+    private final Map<List<String>, Entry> entries = new HashMap<>();
+
+    /**
+     * Adds the binary artifacts to the base artifact of the item, creating it on first use. A binary
+     * artifact already present with the same name and version is only replaced when the new one has
+     * build infos.
+     */
+    public void add(ArtifactItem artifactItem, List<BinaryArtifact> binaryArtifacts) {
+        Entry entry = null;
+        for (BinaryArtifact binaryArtifact : binaryArtifacts) {
+            if (entry == null) {
+                entry = entries.computeIfAbsent(key(artifactItem), key -> newEntry(artifactItem));
+            }
+            entry.add(binaryArtifact);
+        }
+    }
+
+    public List<BaseArtifact> getBaseArtifacts() {
+        return baseArtifacts;
+    }
+
+    private Entry newEntry(ArtifactItem artifactItem) {
+        BaseArtifact baseArtifact = new BaseArtifact();
+        baseArtifact.setArtifactItem(artifactItem);
+        baseArtifacts.add(baseArtifact);
+        return new Entry(baseArtifact);
+    }
+
+    private static List<String> key(ArtifactItem artifactItem) {
+        return Arrays.asList(lowerCase(artifactItem.getArtifactName()), lowerCase(artifactItem.getRepoName()),
+                lowerCase(artifactItem.getPath()));
+    }
+
+    private static String lowerCase(String value) {
+        return StringUtils.lowerCase(value, Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final BaseArtifact baseArtifact;
+        // position of each binary artifact, BinaryArtifact equality is name and version
+        private final Map<BinaryArtifact, Integer> positions = new HashMap<>();
+
+        private Entry(BaseArtifact baseArtifact) {
+            this.baseArtifact = baseArtifact;
+        }
+
+        private void add(BinaryArtifact binaryArtifact) {
+            List<BinaryArtifact> binaryArtifacts = baseArtifact.getBinaryArtifacts();
+            Integer position = positions.get(binaryArtifact);
+            if (position == null) {
+                positions.put(binaryArtifact, binaryArtifacts.size());
+                binaryArtifacts.add(binaryArtifact);
+            } else if (CollectionUtils.isNotEmpty(binaryArtifact.getBuildInfos())) {
+                binaryArtifacts.set(position, binaryArtifact);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.Build;
+import com.capitalone.dashboard.repository.BinaryArtifactBulkRepository;
+import com.capitalone.dashboard.repository.BinaryArtifactRepository;
+import org.apache.commons.collections.CollectionUtils;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Buffers the {@link BinaryArtifact} writes of a collection pass and sends them to Mongo in bulk once
+ * the batch size is reached, and on {@link #flush()}.
+ *
+ * The batch also answers which artifact is the latest for a collector item and version during the pass.
+ * {@link #prefetch(Collection)} loads the latest artifacts of all versions of the collector items in one
+ * aggregation, other lookups go to the repository once per version. Added artifacts become the latest,
+ * so a second row for the same collector item and version finds the first one instead of creating
+ * another new artifact. The latest build infos of each collector item are kept the same way, added
+ * artifacts with build infos replace them for the rest of the pass. Not thread safe, each pass uses
+ * its own batch.
+ */
+public class BinaryArtifactWriteBatch {
+    private final BinaryArtifactRepository binaryArtifactRepository;
+    private final BinaryArtifactBulkRepository bulkRepository;
+    private final int batchSize;
+    private final List<BinaryArtifact> buffer = new ArrayList<>();
+    // null values are versions known to have no artifact
+    private final Map<String, BinaryArtifact> latest = new HashMap<>();
+    // null values are collector items known to have no build infos
+    private final Map<ObjectId, List<Build>> latestBuildInfos = new HashMap<>();
+    private final Set<ObjectId> prefetched = new HashSet<>();
+
+    public BinaryArtifactWriteBatch(BinaryArtifactRepository binaryArtifactRepository, BinaryArtifactBulkRepository bulkRepository,
+                                    int batchSize) {
+        this.binaryArtifactRepository = binaryArtifactRepository;
+        this.bulkRepository = bulkRepository;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Loads the latest stored artifact of every version, and the latest build infos, of the collector
+     * items, so lookups for them need no further queries.
+     */
+    public void prefetch(Collection<ObjectId> collectorItemIds) {
+        List<ObjectId> ids = collectorItemIds.stream()
+                .filter(id -> id != null && !prefetched.contains(id))
+                .distinct()
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) return;
+        for (BinaryArtifact binaryArtifact : bulkRepository.findLatestByCollectorItemIds(ids)) {
+            // artifacts added before the prefetch are newer than the stored ones
+            latest.putIfAbsent(key(binaryArtifact.getCollectorItemId(), binaryArtifact.getArtifactVersion()), binaryArtifact);
+        }
+        for (BinaryArtifact binaryArtifact : bulkRepository.findLatestWithBuildInfosByCollectorItemIds(ids)) {
+            latestBuildInfos.putIfAbsent(binaryArtifact.getCollectorItemId(), binaryArtifact.getBuildInfos());
+        }
+        prefetched.addAll(ids);
+    }
+
+    /**
+     * @return the latest artifact for the collector item and version, added or stored, null if there is none
+     */
+    public BinaryArtifact findLatest(ObjectId collectorItemId, String artifactVersion) {
+        String key = key(collectorItemId, artifactVersion);
+        if (latest.containsKey(key)) return latest.get(key);
+        if (prefetched.contains(collectorItemId)) return null;
+        BinaryArtifact stored = binaryArtifactRepository.findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(collectorItemId, artifactVersion);
+        latest.put(key, stored);
+        return stored;
+    }
+
+    /**
+     * Sets the latest build infos of the collector item, added or stored, on the artifact if there are any.
+     */
+    public void attachLatestBuildInfos(ObjectId collectorItemId, BinaryArtifact binaryArtifact) {
+        List<Build> buildInfos = findLatestBuildInfos(collectorItemId);
+        if (CollectionUtils.isEmpty(buildInfos)) return;
+        binaryArtifact.setBuildInfos(buildInfos);
+    }
+
+    private List<Build> findLatestBuildInfos(ObjectId collectorItemId) {
+        if (latestBuildInfos.containsKey(collectorItemId) || prefetched.contains(collectorItemId)) {
+            return latestBuildInfos.get(collectorItemId);
+        }
+        BinaryArtifact stored = binaryArtifactRepository.findTopByCollectorItemIdAndBuildInfosIsNotEmptyOrderByTimestampDesc(collectorItemId,
+                Sort.by(Sort.Direction.DESC, "timestamp"));
+        List<Build> buildInfos = stored == null ? null : stored.getBuildInfos();
+        latestBuildInfos.put(collectorItemId, buildInfos);
+        return buildInfos;
+    }
+
+    public void add(BinaryArtifact binaryArtifact) {
+        buffer.add(binaryArtifact);
+        latest.put(key(binaryArtifact.getCollectorItemId(), binaryArtifact.getArtifactVersion()), binaryArtifact);
+        if (CollectionUtils.isNotEmpty(binaryArtifact.getBuildInfos())) {
+            latestBuildInfos.put(binaryArtifact.getCollectorItemId(), binaryArtifact.getBuildInfos());
+        }
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        if (buffer.isEmpty()) return;
+        bulkRepository.upsertAll(buffer);
+        buffer.clear();
+    }
+
+    private static String key(ObjectId collectorItemId, String artifactVersion) {
+        return collectorItemId + "/" + artifactVersion;
+    }
+}
@@ -1,20 +1,21 @@
 package com.capitalone.dashboard.collector;
 
 import com.capitalone.dashboard.client.RestClient;
+import com.capitalone.dashboard.model.AqlItem;
 import com.capitalone.dashboard.model.ArtifactItem;
 import com.capitalone.dashboard.model.ArtifactoryRepo;
 import com.capitalone.dashboard.model.BaseArtifact;
 import com.capitalone.dashboard.model.BinaryArtifact;
 import com.capitalone.dashboard.model.Collector;
-import com.capitalone.dashboard.model.RepoAndPattern;
 import com.capitalone.dashboard.model.ServerSetting;
+import com.capitalone.dashboard.repository.BinaryArtifactBulkRepository;
 import com.capitalone.dashboard.repository.BinaryArtifactRepository;
-import com.capitalone.dashboard.util.ArtifactUtil;
+import com.capitalone.dashboard.util.ArtifactPathExtractor;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.map.HashedMap;
-import org.apache.commons.collections4.IterableUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
@@ -22,28 +23,43 @@ import org.json.simple.parser.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Date;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -55,50 +71,46 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 
 	private static final String REPOS_URL_SUFFIX = "api/repositories";
 	private static final String AQL_URL_SUFFIX = "api/search/aql";
-
-	private final DateFormat FULL_DATE = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX");
+	// path and name break ties on modified so that pages do not overlap or skip rows
+	private static final String[] STABLE_ORDER = {AqlQuery.MODIFIED, AqlQuery.PATH, AqlQuery.NAME};
+	// fields read from a row when creating a binary artifact
+	private static final String[] BINARY_ARTIFACT_FIELDS = {AqlQuery.REPO, AqlQuery.PATH, AqlQuery.NAME, AqlQuery.TYPE,
+			AqlQuery.CREATED, AqlQuery.CREATED_BY, AqlQuery.MODIFIED, AqlQuery.MODIFIED_BY,
+			AqlQuery.ACTUAL_MD5, AqlQuery.ACTUAL_SHA1, AqlQuery.VIRTUAL_REPOS};
 
 	private final ArtifactorySettings artifactorySettings;
-	private final RestClient restClient;
+	private final ArtifactoryTransport transport;
 
+	private final RepoRoutingTable routingTable;
 	private final List<Pattern> artifactPatterns;
+	// extractors of the artifact patterns, resolved once instead of per row
+	private final List<ArtifactPathExtractor> artifactExtractors;
 
 	private final BinaryArtifactRepository binaryArtifactRepository;
+	private final BinaryArtifactBulkRepository binaryArtifactBulkRepository;
+	// caps concurrent time window queries per instance across callers
+	private final ConcurrentMap<String, Semaphore> instancePermits = new ConcurrentHashMap<>();
+	// read-only request headers of each configured instance, keyed by url without trailing slashes
+	private final Map<String, HttpHeaders> instanceHeaders;
+	// read-only post headers by instance and content type
+	private final ConcurrentMap<String, HttpHeaders> postHeaders = new ConcurrentHashMap<>();
 
 	@Autowired
-	public DefaultArtifactoryClient(ArtifactorySettings artifactorySettings, RestClient restClient, BinaryArtifactRepository binaryArtifactRepository) {
+	public DefaultArtifactoryClient(ArtifactorySettings artifactorySettings, RestClient restClient, BinaryArtifactRepository binaryArtifactRepository,
+									BinaryArtifactBulkRepository binaryArtifactBulkRepository) {
 		this.artifactorySettings = artifactorySettings;
-		this.restClient = restClient;
+		this.transport = ArtifactoryTransport.HTTP_CLIENT.equalsIgnoreCase(artifactorySettings.getTransport())
+				? new HttpClientTransport(artifactorySettings) : new RestClientTransport(restClient);
 		this.binaryArtifactRepository = binaryArtifactRepository;
-		this.artifactPatterns = new ArrayList<>();
-
-		if (artifactorySettings.getServers() != null) {
-			for (String str : getPatterns()) {
-				try {
-					Pattern p = Pattern.compile(str);
-
-					LOGGER.info("Adding Pattern " + p.pattern());
-
-					artifactPatterns.add(p);
-				} catch (PatternSyntaxException e) {
-					LOGGER.error("Invalid pattern: " + e.getMessage());
-					throw e;
-				}
-			}
-		}
+		this.binaryArtifactBulkRepository = binaryArtifactBulkRepository;
+		this.routingTable = new RepoRoutingTable(artifactorySettings);
+		this.instanceHeaders = buildInstanceHeaders(artifactorySettings.getServers());
+		this.artifactPatterns = routingTable.getAll();
 
 		if (artifactPatterns.isEmpty()) {
 			throw new IllegalStateException("No valid artifact patterns configured. Aborting.");
 		}
-	}
-
-	private List<String> getPatterns(){
-		List<String> patterns = new ArrayList<>();
-		if(artifactorySettings.getServers()!=null) {
-			artifactorySettings.getServers().forEach(serverSetting ->
-					serverSetting.getRepoAndPatterns().forEach(repoAndPattern -> patterns.addAll(repoAndPattern.getPatterns())));
-		}
-		return patterns;
+		this.artifactExtractors = extractors(artifactPatterns);
 	}
 
 	public List<ArtifactoryRepo> getRepos(String instanceUrl) {
@@ -132,9 +144,13 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		return result;
 	}
 
-	public List<BaseArtifact> getArtifactItems(String instanceUrl, String repoName,String pattern, long lastUpdated) {
-		LOGGER.info("Last collector update=" + FULL_DATE.format(new Date(lastUpdated)));
-		List<BaseArtifact> baseArtifacts = new ArrayList<>();
+	public List<BaseArtifact> getArtifactItems(String instanceUrl, String repoName, Pattern pattern, long lastUpdated) {
+		return getArtifactItems(instanceUrl, repoName, pattern, lastUpdated, null);
+	}
+
+	public List<BaseArtifact> getArtifactItems(String instanceUrl, String repoName, Pattern pattern, long lastUpdated, RepoWatermark watermark) {
+		LOGGER.info("Last collector update=" + AqlTimestamps.format(lastUpdated));
+		BaseArtifactAccumulator baseArtifacts = new BaseArtifactAccumulator();
 		if (StringUtils.isNotEmpty(instanceUrl) && StringUtils.isNotEmpty(repoName)) {
 			long currentTime = System.currentTimeMillis();
 			// unit of time's worth of data
@@ -148,182 +164,241 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 				lastUpdated = currentTime - unitTime.toMillis(lookback);
 			}
 
+			List<String> windows = new ArrayList<>();
 			for (long startTime = lastUpdated; startTime < currentTime; startTime += timeInterval) {
-				String body = "items.find({\"created\" : {\"$gt\" : \"" + FULL_DATE.format(new Date(startTime))
-						+ "\"}, \"created\" : {\"$lte\" : \"" + FULL_DATE.format(new Date(Math.min(startTime + timeInterval, currentTime)))
-						+ "\"},\"repo\":{\"$eq\":\"" + repoName
-						+ "\"}}).include(\"*\")";
-				LOGGER.info("Artifact Query ==> " + body);
-				ResponseEntity<String> responseEntity = makeRestPost(instanceUrl, AQL_URL_SUFFIX, MediaType.TEXT_PLAIN, body);
-				String returnJSON = responseEntity.getBody();
-				JSONParser parser = new JSONParser();
+				windows.add(AqlQuery.items()
+						.gt(AqlQuery.MODIFIED, AqlTimestamps.format(startTime))
+						.lte(AqlQuery.MODIFIED, AqlTimestamps.format(Math.min(startTime + timeInterval, currentTime)))
+						.eq(AqlQuery.REPO, repoName)
+						.include(BINARY_ARTIFACT_FIELDS).include(AqlQuery.PROPERTY)
+						.build());
+			}
+			ArtifactPathExtractor extractor = ArtifactPathExtractor.of(pattern);
+			fetchWindows(instanceUrl, windows, returnJSON -> {
 				try {
-					JSONObject json = (JSONObject) parser.parse(returnJSON);
-					JSONArray jsonArtifacts = getJsonArray(json, "results");
-					LOGGER.info("Total JSON Artifacts -- " + jsonArtifacts.size());
-					int count =0;
-					for (Object artifact : jsonArtifacts) {
-						JSONObject jsonArtifact = (JSONObject) artifact;
-						BaseArtifact baseArtifact = new BaseArtifact();
-
-						String repo = getString(jsonArtifact, "repo");
-						final String artifactCanonicalName = getString(jsonArtifact, "name");
-						String artifactPath = getString(jsonArtifact, "path");
-						String fullPath = artifactPath + "/" + artifactCanonicalName;
+					AtomicInteger count = new AtomicInteger();
+					List<Map.Entry<ArtifactItem, List<BinaryArtifact>>> pageRows = new ArrayList<>();
+					int total = AqlResultParser.parse(returnJSON, jsonArtifact -> {
+						if (watermark != null) {
+							// skipped before parsing, which replaces the existing binary artifacts of the row
+							long modified = convertTimestamp(jsonArtifact.getModified() != null ? jsonArtifact.getModified() : jsonArtifact.getCreated());
+							if (watermark.isCommitted(jsonArtifact.getFullPath(), jsonArtifact.getActualSha1(), modified)) return;
+							watermark.observe(jsonArtifact.getFullPath(), jsonArtifact.getActualSha1(), modified);
+						}
+						addBaseArtifact(pageRows, instanceUrl, extractor, jsonArtifact);
+						LOGGER.info("artifact count -- " + count.incrementAndGet() + " repo=" + repoName + "  artifactPath=" + jsonArtifact.getPath());
+					});
+					reconcileArtifactBased(pageRows);
+					pageRows.forEach(row -> baseArtifacts.add(row.getKey(), row.getValue()));
+					LOGGER.info("Total JSON Artifacts -- " + total);
+				} catch (IOException e) {
+					LOGGER.error("Parsing artifact items on instance: " + instanceUrl + " and repo: " + repoName, e);
+				}
+			});
+		}
+		return baseArtifacts.getBaseArtifacts();
+	}
 
+	// windows are fetched concurrently, up to the instance's permits, and handed to the consumer
+	// in window order on the calling thread; at most windowParallelism responses wait to be consumed,
+	// so unlike the other AQL queries the window responses are buffered rather than parsed as they arrive;
+	// a failed or interrupted window cancels the rest and is raised like a failure of the sequential path,
+	// so the caller never commits a watermark past a window that was not collected
+	private void fetchWindows(String instanceUrl, List<String> windows, Consumer<String> consumer) {
+		int parallelism = Math.max(1, Math.min(artifactorySettings.getWindowParallelism(), windows.size()));
+		if (parallelism == 1) {
+			windows.forEach(window -> consumeWindow(fetchWindow(instanceUrl, window), consumer));
+			return;
+		}
+		Semaphore permits = instancePermits.computeIfAbsent(instanceUrl, url -> new Semaphore(artifactorySettings.getWindowParallelism()));
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+				new ThreadFactoryBuilder().setNameFormat("artifactory-window-%d").setDaemon(true).build());
+		Deque<Future<String>> inFlight = new ArrayDeque<>();
+		try {
+			Iterator<String> pending = windows.iterator();
+			while (pending.hasNext() || !inFlight.isEmpty()) {
+				while (pending.hasNext() && inFlight.size() < parallelism) {
+					String window = pending.next();
+					inFlight.add(executor.submit(() -> {
+						permits.acquire();
 						try {
-							Pattern p = Pattern.compile(pattern);
-							BinaryArtifact result = ArtifactUtil.parse(p, fullPath);
-
-							String artName = "";
-							String artPath = artifactPath;
-							if (result != null) {
-								artName = result.getArtifactName();
-								artPath = result.getArtifactGroupId() + "/" + result.getArtifactName();
-							}
+							return fetchWindow(instanceUrl, window);
+						} finally {
+							permits.release();
+						}
+					}));
+				}
+				consumeWindow(inFlight.poll().get(), consumer);
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new ResourceAccessException("Error querying time windows on instance: " + instanceUrl, new IOException(cause));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceAccessException("Interrupted while querying time windows on instance: " + instanceUrl);
+		} finally {
+			inFlight.forEach(window -> window.cancel(true));
+			executor.shutdownNow();
+		}
+	}
 
-							if (artifactPath.charAt(artifactPath.length() - 1) == '/') {
-								artifactPath = artifactPath.substring(0, artifactPath.length() - 1);
-							}
+	private String fetchWindow(String instanceUrl, String query) {
+		LOGGER.info("Artifact Query ==> " + query);
+		ResponseEntity<String> responseEntity = makeRestPost(instanceUrl, AQL_URL_SUFFIX, MediaType.TEXT_PLAIN, query);
+		return Objects.isNull(responseEntity) ? null : responseEntity.getBody();
+	}
 
-							// create artifact_items (collector_item)
-							ArtifactItem artifactItem = createArtifactItem(instanceUrl, repo, artName, artPath);
+	private void consumeWindow(String returnJSON, Consumer<String> consumer) {
+		if (Objects.nonNull(returnJSON)) consumer.accept(returnJSON);
+	}
 
-							String sTimestamp = getString(jsonArtifact, "modified");
-							if (sTimestamp == null) {
-								sTimestamp = getString(jsonArtifact, "created");
-							}
-							long timestamp = 0;
-							if (sTimestamp != null) {
-								try {
-									Date date = FULL_DATE.parse(sTimestamp);
-									timestamp = date.getTime();
-								} catch (java.text.ParseException e) {
-									LOGGER.error("Parsing artifact timestamp: " + sTimestamp, e);
-								}
-							}
+	private void addBaseArtifact(List<Map.Entry<ArtifactItem, List<BinaryArtifact>>> pageRows, String instanceUrl, ArtifactPathExtractor extractor, AqlItem jsonArtifact) {
+		String repo = jsonArtifact.getRepo();
+		final String artifactCanonicalName = jsonArtifact.getName();
+		String artifactPath = jsonArtifact.getPath();
+		String fullPath = artifactPath + "/" + artifactCanonicalName;
 
-							// find existing base artifact matching artifact item unique options
-							BaseArtifact suspect = baseArtifacts.stream().filter(b ->
-									StringUtils.equalsIgnoreCase(b.getArtifactItem().getArtifactName(), artifactItem.getArtifactName())
-											&& StringUtils.equalsIgnoreCase(b.getArtifactItem().getRepoName(), artifactItem.getRepoName())
-											&& StringUtils.equalsIgnoreCase(b.getArtifactItem().getPath(), artifactItem.getPath())).findFirst().orElse(baseArtifact);
+		try {
+			BinaryArtifact result = extractor.parse(fullPath);
 
-							// create artifactInfo
-							List<BinaryArtifact> bas = createArtifactForArtifactBased(artifactCanonicalName, artifactPath, timestamp, jsonArtifact);
-							if (CollectionUtils.isNotEmpty(bas)) {
-								insertOrUpdateBaseArtifact(baseArtifacts, artifactItem, suspect, bas);
-							}
-						} catch (Exception e) {
-							LOGGER.error("Received Exception= " + e.getMessage() + " artifactPath=" + artifactPath, e);
-						}
-						count++;
-						LOGGER.info("artifact count -- " + count + " repo=" + repoName + "  artifactPath=" + artifactPath);
-					}
-				} catch (ParseException e) {
-					LOGGER.error("Parsing artifact items on instance: " + instanceUrl + " and repo: " + repoName, e);
-				}
+			String artName = "";
+			String artPath = artifactPath;
+			if (result != null) {
+				artName = result.getArtifactName();
+				artPath = result.getArtifactGroupId() + "/" + result.getArtifactName();
+			}
+
+			if (artifactPath.charAt(artifactPath.length() - 1) == '/') {
+				artifactPath = artifactPath.substring(0, artifactPath.length() - 1);
+			}
+
+			// create artifact_items (collector_item)
+			ArtifactItem artifactItem = createArtifactItem(instanceUrl, repo, artName, artPath);
+
+			String sTimestamp = jsonArtifact.getModified();
+			if (sTimestamp == null) {
+				sTimestamp = jsonArtifact.getCreated();
+			}
+			long timestamp = convertTimestamp(sTimestamp);
+
+			// create artifactInfo, it is added to the base artifact matching artifact item unique options once the page is reconciled
+			List<BinaryArtifact> bas = createArtifactForArtifactBased(artifactCanonicalName, artifactPath, timestamp, jsonArtifact);
+			if (CollectionUtils.isNotEmpty(bas)) {
+				pageRows.add(new AbstractMap.SimpleImmutableEntry<>(artifactItem, bas));
 			}
+		} catch (Exception e) {
+			LOGGER.error("Received Exception= " + e.getMessage() + " artifactPath=" + artifactPath, e);
 		}
-		return baseArtifacts;
 	}
 
-	public Map<ArtifactItem,List<BinaryArtifact>> getLatestBinaryArtifacts(Collector collector,List<String> patterns, String instanceUrl, String repo){
-		long start = getLastUpdated(collector.getLastExecuted());
+	public Map<ArtifactItem,List<BinaryArtifact>> getLatestBinaryArtifacts(Collector collector,List<Pattern> patterns, String instanceUrl, String repo){
+		return getLatestBinaryArtifacts(getLastUpdated(collector.getLastExecuted()), patterns, instanceUrl, repo);
+	}
+
+	public Map<ArtifactItem,List<BinaryArtifact>> getLatestBinaryArtifacts(long start, List<Pattern> patterns, String instanceUrl, String repo){
 		Map<ArtifactItem,List<BinaryArtifact>> processing = new HashMap<>();
+		List<ArtifactPathExtractor> extractors = extractors(patterns);
 		try {
-			JSONArray binaryArtifacts = sendPostAll(start,repo,instanceUrl);
-			if(CollectionUtils.isNotEmpty(binaryArtifacts)) {
-				for (Object binaryArtifact : binaryArtifacts) {
-					JSONObject baObject = (JSONObject) binaryArtifact;
-					final String artifactCanonicalName = getString(baObject, "name");
-					String artifactPath = getString(baObject, "path");
-					String fullPath = artifactPath + "/" + artifactCanonicalName;
-					boolean isValidParse;
-					BinaryArtifact parsedResult = new BinaryArtifact();
-					for (String pattern : patterns) {
-						Pattern p = Pattern.compile(pattern);
-						isValidParse = ArtifactUtil.validParse(parsedResult, p, fullPath);
-						if (isValidParse) break;
-					}
-					List<BinaryArtifact> artifacts = new ArrayList<>();
-					String path = parsedResult.getArtifactGroupId() + "/" + parsedResult.getArtifactName();
-					ArtifactItem artifactItem = new ArtifactItem(repo, parsedResult.getArtifactName(), path, instanceUrl);
-					BinaryArtifact artifact = createBinaryArtifactFromJsonArtifact(baObject, artifactItem);
-					artifact.setArtifactGroupId(parsedResult.getArtifactGroupId());
-					artifact.setArtifactModule(parsedResult.getArtifactModule());
-					artifact.setArtifactVersion(parsedResult.getArtifactVersion());
-					artifact.setArtifactName(parsedResult.getArtifactName());
-					artifact.setArtifactClassifier(parsedResult.getArtifactClassifier());
-					artifact.setArtifactExtension(parsedResult.getArtifactExtension());
-					artifacts.add(artifact);
-					processing.merge(artifactItem, artifacts, (existing, incoming) -> Stream.of(existing, incoming).flatMap(Collection::stream).collect(Collectors.toList()));
-				}
-			}
-		} catch (ParseException e) {
+			sendPostAll(start, repo, instanceUrl, baObject -> addLatestBinaryArtifact(processing, extractors, instanceUrl, repo, baObject));
+		} catch (IOException e) {
+			LOGGER.error("Error occurred while parsing Binary artifacts=", e.getMessage());
+		}
+		return processing;
+	}
+
+	public Map<ArtifactItem,List<BinaryArtifact>> getLatestBinaryArtifacts(long start, List<Pattern> patterns, String instanceUrl, String repo, long offset, int limit){
+		Map<ArtifactItem,List<BinaryArtifact>> processing = new HashMap<>();
+		List<ArtifactPathExtractor> extractors = extractors(patterns);
+		try {
+			Integer rows = sendPostQuery(buildQueryAll(start, repo).sortAsc(STABLE_ORDER).page(offset, limit).build(), instanceUrl,
+					baObject -> addLatestBinaryArtifact(processing, extractors, instanceUrl, repo, baObject));
+			if (Objects.isNull(rows)) return null;
+		} catch (IOException e) {
 			LOGGER.error("Error occurred while parsing Binary artifacts=", e.getMessage());
+			return null;
 		}
 		return processing;
 	}
-	public List<BinaryArtifact> getArtifactsForVersion(ArtifactItem artifactItem, String version, long startTime, List<String> patterns){
+
+	private void addLatestBinaryArtifact(Map<ArtifactItem,List<BinaryArtifact>> processing, List<ArtifactPathExtractor> extractors, String instanceUrl, String repo, AqlItem baObject) {
+		final String artifactCanonicalName = baObject.getName();
+		String artifactPath = baObject.getPath();
+		String fullPath = artifactPath + "/" + artifactCanonicalName;
+		boolean isValidParse;
+		BinaryArtifact parsedResult = new BinaryArtifact();
+		for (ArtifactPathExtractor extractor : extractors) {
+			isValidParse = extractor.validParse(parsedResult, fullPath);
+			if (isValidParse) break;
+		}
+		List<BinaryArtifact> artifacts = new ArrayList<>();
+		String path = parsedResult.getArtifactGroupId() + "/" + parsedResult.getArtifactName();
+		ArtifactItem artifactItem = new ArtifactItem(repo, parsedResult.getArtifactName(), path, instanceUrl);
+		BinaryArtifact artifact = createBinaryArtifactFromJsonArtifact(baObject, artifactItem);
+		artifact.setArtifactGroupId(parsedResult.getArtifactGroupId());
+		artifact.setArtifactModule(parsedResult.getArtifactModule());
+		artifact.setArtifactVersion(parsedResult.getArtifactVersion());
+		artifact.setArtifactName(parsedResult.getArtifactName());
+		artifact.setArtifactClassifier(parsedResult.getArtifactClassifier());
+		artifact.setArtifactExtension(parsedResult.getArtifactExtension());
+		artifacts.add(artifact);
+		processing.merge(artifactItem, artifacts, (existing, incoming) -> Stream.of(existing, incoming).flatMap(Collection::stream).collect(Collectors.toList()));
+	}
+
+	public List<BinaryArtifact> getArtifactsForVersion(ArtifactItem artifactItem, String version, long startTime, List<Pattern> patterns){
 		List<BinaryArtifact> binaryArtifacts = new ArrayList<>();
 		normalize(artifactItem);
-		int count =0;
+		AtomicInteger count = new AtomicInteger();
+		// a row without a version stops processing of the remaining rows
+		AtomicBoolean versionMissing = new AtomicBoolean();
+		BinaryArtifactWriteBatch writeBatch = newWriteBatch();
+		List<ArtifactPathExtractor> extractors = extractors(patterns);
 
 		try {
-			JSONArray jsonArtifacts = sendPost(startTime,
+			int total = sendPost(startTime,
 					artifactItem.getRepoName(),
 					artifactItem.getPath(),
-					artifactItem.getInstanceUrl());
-			if (Objects.isNull(jsonArtifacts)) {
-				LOGGER.error("No json artifacts found for repo=" + artifactItem.getRepoName()
-						+ " path=" + artifactItem.getPath()
-						+ " collectorItemId=" + artifactItem.getId());
-				return binaryArtifacts;
-			}
-
-			LOGGER.info("Total JSON Artifacts -- " + jsonArtifacts.size());
-			for (Object artifact : jsonArtifacts) {
-				JSONObject jsonArtifact = (JSONObject) artifact;
+					version,
+					artifactItem.getInstanceUrl(), jsonArtifact -> {
+				if (versionMissing.get()) return;
 				BinaryArtifact newbinaryArtifact = createBinaryArtifactFromJsonArtifact(jsonArtifact, artifactItem);
-				final String artifactCanonicalName = getString(jsonArtifact, "name");
-				String artifactPath = getString(jsonArtifact, "path");
+				final String artifactCanonicalName = jsonArtifact.getName();
+				String artifactPath = jsonArtifact.getPath();
 				String fullPath = artifactPath + "/" + artifactCanonicalName;
 
 				BinaryArtifact parsedResult = new BinaryArtifact();
 				boolean isValidParse = false;
 				// check if have values for all regex groups in pattern
 				// try each pattern, if all values are found, then break loop; otherwise continue onto next pattern
-				for (String pattern: patterns) {
-					Pattern p = Pattern.compile(pattern);
-					isValidParse = ArtifactUtil.validParse(parsedResult, p, fullPath);
+				for (ArtifactPathExtractor extractor : extractors) {
+					isValidParse = extractor.validParse(parsedResult, fullPath);
 					if (isValidParse) break;
 				}
 				if (isValidParse) {
 					// version null check
 					if (parsedResult.getArtifactVersion() == null) {
 						LOGGER.error("Could not find version for repo=" + artifactItem.getRepoName() + " fullPath=" + fullPath);
-						break;
+						versionMissing.set(true);
+						return;
 					}
 					if(parsedResult.getArtifactVersion().equalsIgnoreCase(version)){
 						newbinaryArtifact = updateBinaryArtifactWithPatternMatchedAttributes(newbinaryArtifact, parsedResult);
 						// Check if matching Binary Artifact already exists
-						BinaryArtifact existingBinaryArtifact = binaryArtifactRepository.findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(artifactItem.getId(),
+						BinaryArtifact existingBinaryArtifact = writeBatch.findLatest(artifactItem.getId(),
 								newbinaryArtifact.getArtifactVersion());
 						if (Objects.nonNull(existingBinaryArtifact)) {
 							// update existing binary artifact for that version and update timestamp
 							updateExistingBinaryArtifact(newbinaryArtifact, existingBinaryArtifact);
 							binaryArtifacts.add(newbinaryArtifact);
-							binaryArtifactRepository.save(newbinaryArtifact);
 						}
 						else {
 							// get latest binary artifact for this artifact item with build info
-							attachLatestBuildInfo(artifactItem, newbinaryArtifact);
-							// save immediately to avoid creating multiple new BAs for same collectorItemId and artifactVersion
-							binaryArtifactRepository.save(newbinaryArtifact);
+							writeBatch.attachLatestBuildInfos(artifactItem.getId(), newbinaryArtifact);
 						}
-						count++;
-						LOGGER.info("json artifact count -- " + count
+						// added BAs are found by later rows, so only one new BA is created per collectorItemId and artifactVersion
+						writeBatch.add(newbinaryArtifact);
+						LOGGER.info("json artifact count -- " + count.incrementAndGet()
 								+ " repo=" + artifactItem.getRepoName()
 								+ ", artifactPath=" + artifactPath
 								+ ", artifactCanonicalName=" + artifactCanonicalName
@@ -331,16 +406,17 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 					}
 				} else {
 					// invalid parse/not enough data found
-					count++;
-					LOGGER.error("Not enough data found for json artifact count -- " + count
+					LOGGER.error("Not enough data found for json artifact count -- " + count.incrementAndGet()
 							+ " repo=" + artifactItem.getRepoName()
 							+ " artifactPath=" + artifactPath
 							+ " artifactCanonicalName=" + artifactCanonicalName
 							+ " collectorItemId=" + artifactItem.getId()+", artifactVersion="+version);
 				}
-			}
+			});
+			writeBatch.flush();
+			logTotalJsonArtifacts(artifactItem, total);
 
-		} catch (ParseException e) {
+		} catch (IOException e) {
 			LOGGER.error("Parsing artifact items on instance: " + artifactItem.getInstanceUrl() + " and repo: " + artifactItem.getRepoName(), e);
 		} catch (Exception e) {
 			LOGGER.error("Received Exception= " + e.toString() + " artifactPath=" + artifactItem.getPath(), e);
@@ -349,79 +425,76 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 	}
 
 
-	public List<BinaryArtifact> getArtifacts(ArtifactItem artifactItem,List<String> patterns){
+	public List<BinaryArtifact> getArtifacts(ArtifactItem artifactItem,List<Pattern> patterns){
         long start = getLastUpdated(artifactItem.getLastUpdated());
 		List<BinaryArtifact> binaryArtifacts = new ArrayList<>();
+		AtomicInteger count = new AtomicInteger();
+		// a row without a version stops processing of the remaining rows
+		AtomicBoolean versionMissing = new AtomicBoolean();
+		BinaryArtifactWriteBatch writeBatch = newWriteBatch();
+		List<ArtifactPathExtractor> extractors = extractors(patterns);
+		// one aggregation for the existing BAs of all versions instead of a query per row
+		writeBatch.prefetch(Collections.singletonList(artifactItem.getId()));
 
 		try {
-			JSONArray jsonArtifacts = sendPost(start,
+			int total = sendPost(start,
 					artifactItem.getRepoName(),
 					artifactItem.getPath(),
-					artifactItem.getInstanceUrl());
-			if (Objects.isNull(jsonArtifacts)) {
-				LOGGER.error("No json artifacts found for repo=" + artifactItem.getRepoName()
-						+ " path=" + artifactItem.getPath()
-						+ " collectorItemId=" + artifactItem.getId());
-				return binaryArtifacts;
-			}
-			LOGGER.info("Total JSON Artifacts -- " + jsonArtifacts.size());
-			int count = 0;
-			for (Object artifact : jsonArtifacts) {
-				JSONObject jsonArtifact = (JSONObject) artifact;
+					artifactItem.getInstanceUrl(), jsonArtifact -> {
+				if (versionMissing.get()) return;
 				BinaryArtifact newbinaryArtifact = createBinaryArtifactFromJsonArtifact(jsonArtifact, artifactItem);
-				final String artifactCanonicalName = getString(jsonArtifact, "name");
-				String artifactPath = getString(jsonArtifact, "path");
+				final String artifactCanonicalName = jsonArtifact.getName();
+				String artifactPath = jsonArtifact.getPath();
 				String fullPath = artifactPath + "/" + artifactCanonicalName;
 
 				BinaryArtifact parsedResult = new BinaryArtifact();
 				boolean isValidParse = false;
 				// check if have values for all regex groups in pattern
 				// try each pattern, if all values are found, then break loop; otherwise continue onto next pattern
-				for (String pattern: patterns) {
-					Pattern p = Pattern.compile(pattern);
-					isValidParse = ArtifactUtil.validParse(parsedResult, p, fullPath);
+				for (ArtifactPathExtractor extractor : extractors) {
+					isValidParse = extractor.validParse(parsedResult, fullPath);
 					if (isValidParse) break;
 				}
 				if (isValidParse) {
 					// version null check
 					if (parsedResult.getArtifactVersion() == null) {
 						LOGGER.error("Could not find version for repo=" + artifactItem.getRepoName() + " fullPath=" + fullPath);
-						break;
+						versionMissing.set(true);
+						return;
 					}
 					newbinaryArtifact = updateBinaryArtifactWithPatternMatchedAttributes(newbinaryArtifact, parsedResult);
 					// Check if matching Binary Artifact already exists
-					BinaryArtifact existingBinaryArtifact = binaryArtifactRepository.findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(artifactItem.getId(),
+					BinaryArtifact existingBinaryArtifact = writeBatch.findLatest(artifactItem.getId(),
 							newbinaryArtifact.getArtifactVersion());
 					if (Objects.nonNull(existingBinaryArtifact)) {
 						// update existing binary artifact for that version and update timestamp
 						updateExistingBinaryArtifact(newbinaryArtifact, existingBinaryArtifact);
 						binaryArtifacts.add(newbinaryArtifact);
-						binaryArtifactRepository.save(newbinaryArtifact);
 					} else {
 						// get latest binary artifact for this artifact item with build info
-						attachLatestBuildInfo(artifactItem, newbinaryArtifact);
-						// save immediately to avoid creating multiple new BAs for same collectorItemId and artifactVersion
-						binaryArtifactRepository.save(newbinaryArtifact);
+						writeBatch.attachLatestBuildInfos(artifactItem.getId(), newbinaryArtifact);
 					}
+					// added BAs are found by later rows, so only one new BA is created per collectorItemId and artifactVersion
+					writeBatch.add(newbinaryArtifact);
 
-					count++;
-					LOGGER.info("json artifact count -- " + count
+					LOGGER.info("json artifact count -- " + count.incrementAndGet()
 							+ " repo=" + artifactItem.getRepoName()
 							+ " artifactPath=" + artifactPath
 							+ " artifactCanonicalName=" + artifactCanonicalName
 							+ " collectorItemId=" + artifactItem.getId());
 				} else {
 					// invalid parse/not enough data found
-					count++;
-					LOGGER.error("Not enough data found for json artifact count -- " + count
+					LOGGER.error("Not enough data found for json artifact count -- " + count.incrementAndGet()
 							+ " repo=" + artifactItem.getRepoName()
 							+ " artifactPath=" + artifactPath
 							+ " artifactCanonicalName=" + artifactCanonicalName
 							+ " collectorItemId=" + artifactItem.getId());
 				}
-			}
+			});
+			writeBatch.flush();
+			logTotalJsonArtifacts(artifactItem, total);
 
-		} catch (ParseException e) {
+		} catch (IOException e) {
 			LOGGER.error("Parsing artifact items on instance: " + artifactItem.getInstanceUrl() + " and repo: " + artifactItem.getRepoName(), e);
 		} catch (Exception e) {
 			LOGGER.error("Received Exception= " + e.toString() + " artifactPath=" + artifactItem.getPath(), e);
@@ -429,7 +502,17 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		return binaryArtifacts;
 	}
 
-	private long getLastUpdated(long lastUpdated) {
+	private void logTotalJsonArtifacts(ArtifactItem artifactItem, int total) {
+		if (total == 0) {
+			LOGGER.error("No json artifacts found for repo=" + artifactItem.getRepoName()
+					+ " path=" + artifactItem.getPath()
+					+ " collectorItemId=" + artifactItem.getId());
+		} else {
+			LOGGER.info("Total JSON Artifacts -- " + total);
+		}
+	}
+
+	public long getLastUpdated(long lastUpdated) {
 		if(lastUpdated == 0) {
 			return System.currentTimeMillis() - artifactorySettings.getOffSet();
 		} else{
@@ -447,11 +530,13 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		}
 	}
 
-	public List<String> getPattern(String repoName){
-		if(Objects.isNull(repoName)) return null;
-		List<String> pattern =  getRepoAndSubRepoPatterns().entrySet().stream().filter(entry -> repoName.contains(entry.getKey())).map(entry -> entry.getValue()).findFirst().orElse(null);
-		if (org.springframework.util.CollectionUtils.isEmpty(pattern)) return null;
-		return pattern;
+	public List<Pattern> getPattern(String instanceUrl, String repoName){
+		return routingTable.get(instanceUrl, repoName);
+	}
+
+	@Override
+	public RepoRoutingTable getRoutingTable() {
+		return routingTable;
 	}
 
 	@Override
@@ -463,112 +548,96 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		return  artifactItem;
 	}
 
-	private Map<String, List<String>> getRepoAndSubRepoPatterns() {
-		Map<String, List<String>> patterns = new HashedMap();
-		artifactorySettings.getServers().forEach(serverSetting -> {
-			patterns.putAll(getRepoAndPatternsForServ(serverSetting.getRepoAndPatterns()));
-			patterns.putAll(getSubRepoPatternsForServ(serverSetting.getRepoAndPatterns()));
-		});
-		return patterns;
+	private int sendPost(long start, String repoName, String path, String instanceUrl, Consumer<AqlItem> consumer) throws IOException {
+		return sendPaged(buildQuery(start, repoName, path), instanceUrl, consumer);
 	}
 
-	private Map<String, List<String>> getRepoAndPatternsForServ(List<RepoAndPattern> repoAndPatterns) {
-		return repoAndPatterns.stream().collect(Collectors.toMap(RepoAndPattern::getRepo, RepoAndPattern::getPatterns));
+	private int sendPost(long start, String repoName, String path, String version, String instanceUrl, Consumer<AqlItem> consumer) throws IOException {
+		return sendPaged(buildQuery(start, repoName, path, version), instanceUrl, consumer);
 	}
 
-	private Map<String, List<String>> getSubRepoPatternsForServ(List<RepoAndPattern> repoAndPatterns) {
-		Map<String, List<String>> subRepoToPattern = new HashMap<>();
-		Map<List<String>, List<String>> subReposListToPatterns = repoAndPatterns.stream()
-				.filter(repoAndPattern -> !org.springframework.util.CollectionUtils.isEmpty(repoAndPattern.getSubRepos()))
-				.collect(Collectors.toMap(RepoAndPattern::getSubRepos, RepoAndPattern::getPatterns));
-		subReposListToPatterns.forEach((subRepos, patterns) -> subRepos.forEach(subRepo -> subRepoToPattern.put(subRepo, patterns)));
-		return subRepoToPattern;
+	private int sendPostAll(long start, String repoName, String instanceUrl, Consumer<AqlItem> consumer) throws IOException {
+		return sendPaged(buildQueryAll(start, repoName), instanceUrl, consumer);
 	}
 
-
-	private JSONArray sendPost(long start, String repoName, String path, String instanceUrl) throws ParseException {
-		String returnJSON = sendPostQueryByRepo(start, repoName, path, instanceUrl);
-		if (Objects.isNull(returnJSON)) return null;
-		JSONParser parser = new JSONParser();
-		JSONArray jsonArtifacts = parseJsonArtifacts(parser, returnJSON);
-		if (!jsonArtifacts.isEmpty()) return jsonArtifacts;
-		return null;
+	// with a page size configured the query is sent one page at a time, and every row of a page
+	// is handed to the consumer before the next page is requested
+	private int sendPaged(AqlQuery query, String instanceUrl, Consumer<AqlItem> consumer) throws IOException {
+		int pageSize = artifactorySettings.getPageSize();
+		if (pageSize <= 0) return sendQuery(query.build(), instanceUrl, consumer);
+		query.sortAsc(STABLE_ORDER);
+		int total = 0;
+		int rows;
+		do {
+			rows = sendQuery(query.page(total, pageSize).build(), instanceUrl, consumer);
+			total += rows;
+		} while (rows == pageSize);
+		return total;
 	}
 
-	private JSONArray sendPostAll(long start, String repoName, String instanceUrl) throws ParseException {
-		String returnJSON = sendPostQueryAll(start, repoName, instanceUrl);
-		if (Objects.isNull(returnJSON)) return null;
-		JSONParser parser = new JSONParser();
-		JSONArray jsonArtifacts = parseJsonArtifacts(parser, returnJSON);
-		if (!jsonArtifacts.isEmpty()) return jsonArtifacts;
-		return null;
+	private int sendQuery(String query, String instanceUrl, Consumer<AqlItem> consumer) throws IOException {
+		Integer rows = sendPostQuery(query, instanceUrl, consumer);
+		return Objects.isNull(rows) ? 0 : rows;
 	}
 
-	private String sendPostQueryAll(long start, String repo, String instanceUrl) {
-		String query = buildQueryAll(start, repo);
+	// the response is parsed from the transport's stream as it arrives, so only the current row is held
+	// in memory; null if there was no response
+	private Integer sendPostQuery(String query, String instanceUrl, Consumer<AqlItem> consumer) throws IOException {
 		LOGGER.info("Artifact Query ==> " + query);
-		ResponseEntity<String> responseEntity = makeRestPost(instanceUrl, AQL_URL_SUFFIX, MediaType.TEXT_PLAIN, query);
-		// retry if first time fails
-		if (Objects.isNull(responseEntity)) {
-			responseEntity = makeRestPost(instanceUrl, AQL_URL_SUFFIX, MediaType.TEXT_PLAIN, query);
+		Integer rows = makeRestPost(instanceUrl, AQL_URL_SUFFIX, MediaType.TEXT_PLAIN, query, in -> AqlResultParser.parse(in, consumer));
+		// retry if first time fails, a rejected query is raised before any row is read
+		if (Objects.isNull(rows)) {
+			rows = makeRestPost(instanceUrl, AQL_URL_SUFFIX, MediaType.TEXT_PLAIN, query, in -> AqlResultParser.parse(in, consumer));
 		}
-		if (Objects.isNull(responseEntity)) return null;
-		return responseEntity.getBody();
-	}
-
-	private String buildQueryAll(long start, String repo){
-		String query =  "items.find({\"created\" : {\"$gt\" : \"" + FULL_DATE.format(new Date(start))
-				+ "\"},\"repo\":{\"$eq\":\"" + repo
-				+ "\"}})"
-				+ ".include(\"*\")"
-				+ ".sort({\"$asc\" : [\"modified\"]})";
-		return query;
-
+		return rows;
 	}
 
-	private String sendPostQueryByRepo(long start, String repo, String path, String instanceUrl) {
-		String query = buildQuery(start, repo, path);
-		LOGGER.info("Artifact Query ==> " + query);
-		ResponseEntity<String> responseEntity = makeRestPost(instanceUrl, AQL_URL_SUFFIX, MediaType.TEXT_PLAIN, query);
-		// retry if first time fails
-		if (Objects.isNull(responseEntity)) {
-			responseEntity = makeRestPost(instanceUrl, AQL_URL_SUFFIX, MediaType.TEXT_PLAIN, query);
-		}
-		if (Objects.isNull(responseEntity)) return null;
-		return responseEntity.getBody();
+	// rows are grouped by artifact item before processing, so the order is not needed unless paged
+	private AqlQuery buildQueryAll(long start, String repo){
+		return AqlQuery.items()
+				.gt(AqlQuery.MODIFIED, AqlTimestamps.format(start))
+				.eq(AqlQuery.REPO, repo)
+				.include(BINARY_ARTIFACT_FIELDS);
 	}
 
-	private String buildQuery(long start, String repo, String path){
-		String constructPath = path + "/*";
-		String query =  "items.find({\"created\" : {\"$gt\" : \"" + FULL_DATE.format(new Date(start))
-                + "\"},\"repo\":{\"$eq\":\"" + repo
-				+ "\"},\"path\":{\"$match\":\""+constructPath+"\"}})"
-				+ ".include(\"*\")"
-				+ ".sort({\"$asc\" : [\"modified\"]})";
-		return query;
-
+	// sorted, rows are processed in modified order and a row without a version stops the rest
+	private AqlQuery buildQuery(long start, String repo, String path){
+		return AqlQuery.items()
+				.gt(AqlQuery.CREATED, AqlTimestamps.format(start))
+				.eq(AqlQuery.REPO, repo)
+				.match(AqlQuery.PATH, path + "/*")
+				.include(BINARY_ARTIFACT_FIELDS)
+				.sortAsc(STABLE_ORDER);
 	}
 
-	private JSONArray parseJsonArtifacts(JSONParser parser, String returnJSON) throws ParseException {
-		JSONObject json = (JSONObject) parser.parse(returnJSON);
-		JSONArray jsonArtifacts = getJsonArray(json, "results");
-		return jsonArtifacts;
+	// only rows whose path or name contains the version are returned, the parsed version still decides which
+	// match. AQL has no escape for its wildcards, so a version containing one is left to the parsed check.
+	// $match is case sensitive while the parsed version is compared ignoring case, so letters match any character
+	private AqlQuery buildQuery(long start, String repo, String path, String version){
+		AqlQuery query = buildQuery(start, repo, path);
+		if (StringUtils.isEmpty(version) || version.indexOf('*') >= 0 || version.indexOf('?') >= 0) return query;
+		StringBuilder contains = new StringBuilder("*");
+		for (char c : version.toCharArray()) {
+			contains.append(Character.toUpperCase(c) != Character.toLowerCase(c) ? '?' : c);
+		}
+		contains.append('*');
+		return query.or(AqlQuery.items().match(AqlQuery.PATH, contains.toString()), AqlQuery.items().match(AqlQuery.NAME, contains.toString()));
 	}
 
-	private BinaryArtifact createBinaryArtifactFromJsonArtifact(JSONObject jsonArtifact, ArtifactItem artifactItem) {
+	private BinaryArtifact createBinaryArtifactFromJsonArtifact(AqlItem jsonArtifact, ArtifactItem artifactItem) {
 		BinaryArtifact binaryArtifact = new BinaryArtifact();
 		binaryArtifact.setCollectorItemId(artifactItem.getId());
-		binaryArtifact.setRepo(getString(jsonArtifact, "repo"));
-		binaryArtifact.setPath(getString(jsonArtifact, "path"));
-		binaryArtifact.setCanonicalName(getString(jsonArtifact, "name"));
-		binaryArtifact.setType(getString(jsonArtifact, "type"));
-		binaryArtifact.setCreatedTimeStamp(convertTimestamp(getString(jsonArtifact, "created")));
-		binaryArtifact.setCreatedBy(getString(jsonArtifact, "created_by"));
-		binaryArtifact.setModifiedTimeStamp(convertTimestamp(getString(jsonArtifact, "modified")));
-		binaryArtifact.setModifiedBy(getString(jsonArtifact, "modified_by"));
-		binaryArtifact.setActual_md5(getString(jsonArtifact, "actual_md5"));
-		binaryArtifact.setActual_sha1(getString(jsonArtifact, "actual_sha1"));
-		binaryArtifact.setVirtualRepos(getJsonArray(jsonArtifact, "virtual_repos"));
+		binaryArtifact.setRepo(jsonArtifact.getRepo());
+		binaryArtifact.setPath(jsonArtifact.getPath());
+		binaryArtifact.setCanonicalName(jsonArtifact.getName());
+		binaryArtifact.setType(jsonArtifact.getType());
+		binaryArtifact.setCreatedTimeStamp(convertTimestamp(jsonArtifact.getCreated()));
+		binaryArtifact.setCreatedBy(jsonArtifact.getCreatedBy());
+		binaryArtifact.setModifiedTimeStamp(convertTimestamp(jsonArtifact.getModified()));
+		binaryArtifact.setModifiedBy(jsonArtifact.getModifiedBy());
+		binaryArtifact.setActual_md5(jsonArtifact.getActualMd5());
+		binaryArtifact.setActual_sha1(jsonArtifact.getActualSha1());
+		binaryArtifact.setVirtualRepos(jsonArtifact.getVirtualRepos());
 		binaryArtifact.setTimestamp(System.currentTimeMillis());
 
 		return binaryArtifact;
@@ -585,117 +654,49 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		return binaryArtifact;
 	}
 
-	private void updateExistingBinaryArtifact(BinaryArtifact newBinaryArtifact, BinaryArtifact existingBinaryArtifact) {
-		if(!CollectionUtils.isEmpty(existingBinaryArtifact.getBuildInfos())){
-			newBinaryArtifact.setBuildInfos(existingBinaryArtifact.getBuildInfos());
-		}
-	}
-
-
-	private void attachLatestBuildInfo(ArtifactItem artifactItem, BinaryArtifact binaryArtifact) {
-		// get latest binary artifact associated with the artifact item by desc timestamp
-		BinaryArtifact latestWithBuildInfo = binaryArtifactRepository.findTopByCollectorItemIdAndBuildInfosIsNotEmptyOrderByTimestampDesc(artifactItem.getId(), Sort.by(Sort.Direction.DESC, "timestamp"));
-		if (Objects.isNull(latestWithBuildInfo)) return;
-		binaryArtifact.setBuildInfos(latestWithBuildInfo.getBuildInfos());
-	}
-
-	private void insertOrUpdateBaseArtifact(List<BaseArtifact> baseArtifacts, ArtifactItem artifactItem, BaseArtifact suspect, List<BinaryArtifact> bas) {
-		for (BinaryArtifact ba: bas) {
-			if(containsBinaryArtifactWithBuildInfo(suspect, ba)){
-				if(baseArtifactNotNull(baseArtifacts, suspect)){
-					addOrUpdateBinaryArtifactToBaseArtifact(baseArtifacts, artifactItem, suspect, ba);
-				}else{
-					addNewBaseArtifact(baseArtifacts, artifactItem, suspect, ba);
-				}
-			}
-
-		}
-	}
-
-
-	private void addNewBaseArtifact(List<BaseArtifact> baseArtifacts, ArtifactItem artifactItem, BaseArtifact suspect, BinaryArtifact ba) {
-		suspect.getBinaryArtifacts().add(ba);
-		suspect.setArtifactItem(artifactItem);
-		baseArtifacts.add(suspect);
+	private BinaryArtifactWriteBatch newWriteBatch() {
+		return new BinaryArtifactWriteBatch(binaryArtifactRepository, binaryArtifactBulkRepository, artifactorySettings.getWriteBatchSize());
 	}
 
-	private void addOrUpdateBinaryArtifactToBaseArtifact(List<BaseArtifact> baseArtifacts, ArtifactItem artifactItem, BaseArtifact suspect, BinaryArtifact ba) {
-		int index = baseArtifacts.indexOf(suspect);
-		if (index > UPPER_INDEX) {
-			updateArtifactsInExistingBaseArtifact(baseArtifacts, ba, index);
-		} else {
-			addNewBaseArtifact(baseArtifacts,artifactItem,suspect,ba);
-		}
-	}
 
-	private void updateArtifactsInExistingBaseArtifact(List<BaseArtifact> baseArtifacts, BinaryArtifact ba, int index) {
-		int ind = baseArtifacts.get(index).getBinaryArtifacts().indexOf(ba);
-		if(ind > UPPER_INDEX){
-			baseArtifacts.get(index).getBinaryArtifacts().set(ind,ba);
-		}else{
-			baseArtifacts.get(index).getBinaryArtifacts().add(ba);
+	private void updateExistingBinaryArtifact(BinaryArtifact newBinaryArtifact, BinaryArtifact existingBinaryArtifact) {
+		if(!CollectionUtils.isEmpty(existingBinaryArtifact.getBuildInfos())){
+			newBinaryArtifact.setBuildInfos(existingBinaryArtifact.getBuildInfos());
 		}
 	}
 
-	private boolean baseArtifactNotNull(List<BaseArtifact> baseArtifacts, BaseArtifact suspect) {
-		return baseArtifacts!= null && suspect.getArtifactItem()!=null && !baseArtifacts.isEmpty();
-	}
-
-	private boolean containsBinaryArtifactWithBuildInfo(BaseArtifact suspect, BinaryArtifact ba) {
-		return isNewData(suspect, ba) || artifactWithBuildData(suspect, ba);
-	}
 
-	private boolean artifactWithBuildData(BaseArtifact suspect, BinaryArtifact ba) {
-		return suspect.getBinaryArtifacts().contains(ba) && CollectionUtils.isNotEmpty(ba.getBuildInfos());
-	}
 
-	private boolean isNewData(BaseArtifact suspect, BinaryArtifact ba) {
-		return !suspect.getBinaryArtifacts().contains(ba);
-	}
 
 
 	public List<BinaryArtifact> getArtifacts(String instanceUrl, String repoName, long lastUpdated) {
 		List<BinaryArtifact> result = new ArrayList<>();
 		// get the list of artifacts
 		if (StringUtils.isNotEmpty(instanceUrl) && StringUtils.isNotEmpty(repoName)) {
-			String body = "items.find({\"created\" : {\"$gt\" : \"" + FULL_DATE.format(new Date(lastUpdated))
-					+ "\"},\"repo\":{\"$eq\":\"" + repoName
-					+ "\"}}).include(\"repo\", \"name\", \"path\", \"created\", \"modified\", \"property\")";
-
-			ResponseEntity<String> responseEntity = makeRestPost(instanceUrl, AQL_URL_SUFFIX, MediaType.TEXT_PLAIN, body);
-			String returnJSON = responseEntity.getBody();
-			JSONParser parser = new JSONParser();
+			String body = AqlQuery.items()
+					.gt(AqlQuery.CREATED, AqlTimestamps.format(lastUpdated))
+					.eq(AqlQuery.REPO, repoName)
+					.include(AqlQuery.REPO, AqlQuery.NAME, AqlQuery.PATH, AqlQuery.CREATED, AqlQuery.MODIFIED, AqlQuery.PROPERTY)
+					.build();
 
 			try {
-				JSONObject json = (JSONObject) parser.parse(returnJSON);
-				JSONArray jsonArtifacts = getJsonArray(json, "results");
-				for (Object artifact : jsonArtifacts) {
-					JSONObject jsonArtifact = (JSONObject) artifact;
-
-					final String artifactCanonicalName = getString(jsonArtifact, "name");
-					String artifactPath = getString(jsonArtifact, "path");
+				makeRestPost(instanceUrl, AQL_URL_SUFFIX, MediaType.TEXT_PLAIN, body, in -> AqlResultParser.parse(in, jsonArtifact -> {
+					final String artifactCanonicalName = jsonArtifact.getName();
+					String artifactPath = jsonArtifact.getPath();
 					if (artifactPath.charAt(artifactPath.length()-1) == '/') {
 						artifactPath = artifactPath.substring(0, artifactPath.length()-1);
 					}
-					String sTimestamp = getString(jsonArtifact, "modified");
+					String sTimestamp = jsonArtifact.getModified();
 					if (sTimestamp == null) {
-						sTimestamp = getString(jsonArtifact, "created");
-					}
-					long timestamp = 0;
-					if (sTimestamp != null) {
-						try {
-							Date date = FULL_DATE.parse(sTimestamp);
-							timestamp = date.getTime();
-						} catch (java.text.ParseException e) {
-							LOGGER.error("Parsing artifact timestamp: " + sTimestamp, e);
-						}
+						sTimestamp = jsonArtifact.getCreated();
 					}
+					long timestamp = convertTimestamp(sTimestamp);
 					BinaryArtifact ba = createArtifact(artifactCanonicalName, artifactPath, timestamp, jsonArtifact);
 					if (ba != null) {
 						result.add(ba);
 					}
-				}
-			} catch (ParseException e) {
+				}));
+			} catch (IOException e) {
 				LOGGER.error("Parsing artifacts on instance: " + instanceUrl + " and repo: " + repoName, e);
 			}
 		}
@@ -721,29 +722,34 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 	 * @param jsonArtifact 					the artifact metadata is extracted from here
 	 * @return
 	 */
-	private BinaryArtifact createArtifact(String artifactCanonicalName, String artifactPath, long timestamp, JSONObject jsonArtifact) {
+	private static List<ArtifactPathExtractor> extractors(List<Pattern> patterns) {
+		return patterns.stream().map(ArtifactPathExtractor::of).collect(Collectors.toList());
+	}
+
+	private BinaryArtifact createArtifact(String artifactCanonicalName, String artifactPath, long timestamp, AqlItem jsonArtifact) {
 		BinaryArtifact result = null;
 		String fullPath = artifactPath + "/" + artifactCanonicalName;
 
 		int idx = 0;
-		for (Pattern pattern : artifactPatterns) {
-			result = ArtifactUtil.parse(pattern, fullPath);
+		for (ArtifactPathExtractor extractor : artifactExtractors) {
+			result = extractor.parse(fullPath);
 
 			if (result != null) {
 				if (LOGGER.isDebugEnabled()) {
 					LOGGER.debug("Artifact at " + fullPath + " matched pattern " + idx);
 				}
 
-				result.setType(getString(jsonArtifact, "type"));
-				result.setCreatedTimeStamp(convertTimestamp(getString(jsonArtifact, "created")));
-				result.setCreatedBy(getString(jsonArtifact, "created_by"));
-				result.setModifiedTimeStamp(convertTimestamp(getString(jsonArtifact, "modified")));
-				result.setModifiedBy(getString(jsonArtifact, "modified_by"));
-				result.setActual_md5(getString(jsonArtifact,  "actual_md5"));
-				result.setActual_sha1(getString(jsonArtifact, "actual_sha1"));
+				result.setType(jsonArtifact.getType());
+				result.setCreatedTimeStamp(convertTimestamp(jsonArtifact.getCreated()));
+				result.setCreatedBy(jsonArtifact.getCreatedBy());
+				// timestamp is the parsed modified time when there is one
+				result.setModifiedTimeStamp(jsonArtifact.getModified() == null ? 0 : timestamp);
+				result.setModifiedBy(jsonArtifact.getModifiedBy());
+				result.setActual_md5(jsonArtifact.getActualMd5());
+				result.setActual_sha1(jsonArtifact.getActualSha1());
 				result.setCanonicalName(artifactCanonicalName);
 				result.setTimestamp(timestamp);
-				result.setVirtualRepos(getJsonArray(jsonArtifact, "virtual_repos"));
+				result.setVirtualRepos(jsonArtifact.getVirtualRepos());
 				addMetadataToArtifact(result, jsonArtifact);
 
 
@@ -759,34 +765,25 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		return null;
 	}
 
-	private List<BinaryArtifact> createArtifactForArtifactBased(String artifactCanonicalName, String artifactPath, long timestamp, JSONObject jsonArtifact) {
+	private List<BinaryArtifact> createArtifactForArtifactBased(String artifactCanonicalName, String artifactPath, long timestamp, AqlItem jsonArtifact) {
 		BinaryArtifact result = null;
 		String fullPath = artifactPath + "/" + artifactCanonicalName;
 		List<BinaryArtifact> binaryArtifactList = new ArrayList<>();
 		int idx = 0;
-		for (Pattern pattern : artifactPatterns) {
-			result = ArtifactUtil.parse(pattern, fullPath);
+		for (ArtifactPathExtractor extractor : artifactExtractors) {
+			result = extractor.parse(fullPath);
 			if (result != null) {
-				String artifactName = result.getArtifactName();
-				String artifactVersion = result.getArtifactVersion();
-				Iterable<BinaryArtifact> bas = binaryArtifactRepository.findByArtifactNameAndArtifactVersion(artifactName, artifactVersion);
-				if(!IterableUtils.isEmpty(bas)){
-					for (BinaryArtifact ba: bas) {
-						setCollectorItemId(result, ba);
-						setBuilds(result, ba);
-						binaryArtifactRepository.delete(ba);
-					}
-				}
-				result.setType(getString(jsonArtifact, "type"));
-				result.setCreatedTimeStamp(convertTimestamp(getString(jsonArtifact, "created")));
-				result.setCreatedBy(getString(jsonArtifact, "created_by"));
-				result.setModifiedTimeStamp(convertTimestamp(getString(jsonArtifact, "modified")));
-				result.setModifiedBy(getString(jsonArtifact, "modified_by"));
-				result.setActual_md5(getString(jsonArtifact, "actual_md5"));
-				result.setActual_sha1(getString(jsonArtifact, "actual_sha1"));
+				result.setType(jsonArtifact.getType());
+				result.setCreatedTimeStamp(convertTimestamp(jsonArtifact.getCreated()));
+				result.setCreatedBy(jsonArtifact.getCreatedBy());
+				// timestamp is the parsed modified time when there is one
+				result.setModifiedTimeStamp(jsonArtifact.getModified() == null ? 0 : timestamp);
+				result.setModifiedBy(jsonArtifact.getModifiedBy());
+				result.setActual_md5(jsonArtifact.getActualMd5());
+				result.setActual_sha1(jsonArtifact.getActualSha1());
 				result.setCanonicalName(artifactCanonicalName);
 				result.setTimestamp(timestamp);
-				result.setVirtualRepos(getJsonArray(jsonArtifact, "virtual_repos"));
+				result.setVirtualRepos(jsonArtifact.getVirtualRepos());
 				addMetadataToArtifact(result, jsonArtifact);
 
 				binaryArtifactList.add(result);
@@ -803,6 +800,32 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		return binaryArtifactList;
 	}
 
+	/**
+	 * Replaces the stored artifacts with the names and versions of a page of rows, with one query and one delete.
+	 * The first artifact of the page with a name and version takes over their collector item and build infos.
+	 */
+	private void reconcileArtifactBased(List<Map.Entry<ArtifactItem, List<BinaryArtifact>>> pageRows) {
+		Map<List<String>, BinaryArtifact> firstByKey = new HashMap<>();
+		pageRows.forEach(row -> row.getValue().forEach(ba ->
+				firstByKey.putIfAbsent(Arrays.asList(ba.getArtifactName(), ba.getArtifactVersion()), ba)));
+		if (firstByKey.isEmpty()) return;
+		Set<String> names = new HashSet<>();
+		Set<String> versions = new HashSet<>();
+		firstByKey.keySet().forEach(key -> {
+			names.add(key.get(0));
+			versions.add(key.get(1));
+		});
+		List<ObjectId> replaced = new ArrayList<>();
+		for (BinaryArtifact ba : binaryArtifactBulkRepository.findByArtifactNamesAndVersions(names, versions)) {
+			BinaryArtifact result = firstByKey.get(Arrays.asList(ba.getArtifactName(), ba.getArtifactVersion()));
+			if (result == null) continue;
+			setCollectorItemId(result, ba);
+			setBuilds(result, ba);
+			replaced.add(ba.getId());
+		}
+		binaryArtifactBulkRepository.deleteByIds(replaced);
+	}
+
 	private void setBuilds(BinaryArtifact result, BinaryArtifact ba) {
 		if(Objects.nonNull(ba.getBuildInfos())&& !ba.getBuildInfos().isEmpty()){
 			result.setBuildInfos(ba.getBuildInfos());
@@ -820,22 +843,19 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		long timestamp = 0;
 		if (sTimestamp != null) {
 			try {
-				Date date = FULL_DATE.parse(sTimestamp);
-				timestamp = date.getTime();
-			} catch (java.text.ParseException e) {
+				timestamp = AqlTimestamps.parse(sTimestamp);
+			} catch (DateTimeParseException e) {
 				LOGGER.error("Parsing artifact timestamp: " + sTimestamp, e);
 			}
 		}
 		return timestamp;
 	}
 	@SuppressWarnings("PMD.AvoidDeeplyNestedIfStmts")
-	private void addMetadataToArtifact(BinaryArtifact ba, JSONObject jsonArtifact) {
+	private void addMetadataToArtifact(BinaryArtifact ba, AqlItem jsonArtifact) {
 		if (ba != null && jsonArtifact != null) {
-			JSONArray jsonProperties = getJsonArray(jsonArtifact, "properties");
-			for (Object property : jsonProperties) {
-				JSONObject jsonProperty = (JSONObject) property;
-				String key = getString(jsonProperty, "key");
-				String value = getString(jsonProperty, "value");
+			for (Map.Entry<String, String> property : jsonArtifact.getProperties().entrySet()) {
+				String key = property.getKey();
+				String value = property.getValue();
 				switch (key) {
 					case "build.url":
 					case "build_url":
@@ -910,7 +930,7 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		String url = joinUrl(instanceUrl, artifactorySettings.getEndpoint(), suffix);
 		try {
 			HttpHeaders headers = createHeaders(instanceUrl);
-			response = restClient.makeRestCallGet(url, headers);
+			response = transport.get(url, headers);
 
 		} catch (RestClientException re) {
 			LOGGER.error("Error with REST url: " + url);
@@ -923,10 +943,7 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		ResponseEntity<String> response = null;
 		String url = joinUrl(instanceUrl, artifactorySettings.getEndpoint(), suffix);
 		try {
-			HttpHeaders headers = createHeaders(instanceUrl);
-			headers.setContentType(contentType);
-			headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
-			response = restClient.makeRestCallPost(url, headers, body);
+			response = transport.post(url, postHeaders(instanceUrl, contentType), body);
 		} catch (HttpClientErrorException re) {
 			LOGGER.error("Error with REST url: " + url);
 			LOGGER.error(re.getMessage() + ": " + re.getResponseBodyAsString());
@@ -934,6 +951,29 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		return response;
 	}
 
+	// hands the response body to the reader as a stream; null if there was no response or the request was rejected
+	private <T> T makeRestPost(String instanceUrl, String suffix, MediaType contentType, String body,
+							   ArtifactoryTransport.BodyReader<T> reader) throws IOException {
+		String url = joinUrl(instanceUrl, artifactorySettings.getEndpoint(), suffix);
+		try {
+			return transport.post(url, postHeaders(instanceUrl, contentType), body, reader);
+		} catch (HttpClientErrorException re) {
+			LOGGER.error("Error with REST url: " + url);
+			LOGGER.error(re.getMessage() + ": " + re.getResponseBodyAsString());
+			return null;
+		}
+	}
+
+	private HttpHeaders postHeaders(String instanceUrl, MediaType contentType) {
+		return postHeaders.computeIfAbsent(instanceKey(instanceUrl) + ' ' + contentType, key -> {
+			HttpHeaders postHeader = new HttpHeaders();
+			postHeader.putAll(createHeaders(instanceUrl));
+			postHeader.setContentType(contentType);
+			postHeader.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+			return HttpHeaders.readOnlyHttpHeaders(postHeader);
+		});
+	}
+
 	// join a base url to another path or paths - this will handle trailing or non-trailing /'s
 	private String joinUrl(String url, String... paths) {
 		StringBuilder result = new StringBuilder(url);
@@ -949,35 +989,33 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		return result.toString();
 	}
 
+	/**
+	 * @return the read-only headers of the configured instance with exactly this url, ignoring trailing slashes
+	 */
 	protected HttpHeaders createHeaders(String instanceUrl) {
-		HttpHeaders headers = new HttpHeaders();
-		List<ServerSetting> servers = this.artifactorySettings.getServers();
-		List<String> userNames = new ArrayList<>();
-		List<String> apiKeys = new ArrayList<>();
-		servers.forEach(serverSetting -> {
-			userNames.add(serverSetting.getUsername());
-			apiKeys.add(serverSetting.getApiKey());
-		});
+		return instanceHeaders.getOrDefault(instanceKey(instanceUrl), HttpHeaders.EMPTY);
+	}
 
-		if (CollectionUtils.isNotEmpty(servers) && CollectionUtils.isNotEmpty(userNames) && CollectionUtils.isNotEmpty(apiKeys)) {
-			for (int i = 0; i < servers.size(); i++) {
-				ServerSetting serverSetting = servers.get(i);
-				if (serverSetting != null && serverSetting.getUrl().contains(instanceUrl)
-						&& i < userNames.size() && i < apiKeys.size() && userNames.get(i) != null && apiKeys.get(i) != null) {
-					String userInfo = userNames.get(i) + ":" + apiKeys.get(i);
-					byte[] encodedAuth = Base64.encodeBase64(
-							userInfo.getBytes(StandardCharsets.US_ASCII));
-					String authHeader = "Basic " + new String(encodedAuth);
-					headers.set(HttpHeaders.AUTHORIZATION, authHeader);
-				}
+	private static Map<String, HttpHeaders> buildInstanceHeaders(List<ServerSetting> servers) {
+		Map<String, HttpHeaders> headersByInstance = new HashMap<>();
+		if (CollectionUtils.isEmpty(servers)) return headersByInstance;
+		for (ServerSetting serverSetting : servers) {
+			if (serverSetting == null || serverSetting.getUrl() == null) continue;
+			HttpHeaders headers = new HttpHeaders();
+			if (serverSetting.getUsername() != null && serverSetting.getApiKey() != null) {
+				String userInfo = serverSetting.getUsername() + ":" + serverSetting.getApiKey();
+				byte[] encodedAuth = Base64.encodeBase64(
+						userInfo.getBytes(StandardCharsets.US_ASCII));
+				headers.set(HttpHeaders.AUTHORIZATION, "Basic " + new String(encodedAuth));
 			}
+			// a url configured twice keeps the credentials of the last one, as before
+			headersByInstance.put(instanceKey(serverSetting.getUrl()), HttpHeaders.readOnlyHttpHeaders(headers));
 		}
-		return headers;
+		return headersByInstance;
 	}
 
-	private JSONArray getJsonArray(JSONObject json, String key) {
-		Object array = json.get(key);
-		return array == null ? new JSONArray() : (JSONArray) array;
+	private static String instanceKey(String instanceUrl) {
+		return StringUtils.stripEnd(instanceUrl, "/");
 	}
 
 	private String getString(JSONObject json, String key) {
@@ -1024,4 +1062,4 @@ public class DefaultArtifactoryClient implements ArtifactoryClient {
 		return repoName+ SLASH +path;
 	}
 
-}
\ No newline at end of file
+}
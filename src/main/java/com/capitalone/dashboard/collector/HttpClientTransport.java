@@ -0,0 +1,169 @@
+package com.capitalone.dashboard.collector;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link ArtifactoryTransport} on the JDK {@link HttpClient}.
+ *
+ * A single client is shared by all instance urls. It keeps connections alive per origin, negotiates HTTP/2
+ * when the server offers it and asks for gzip encoded responses, which shrinks the AQL JSON considerably.
+ * Streamed responses are handed to their reader as they arrive instead of being buffered.
+ *
+ * The read timeout bounds the wait for the response headers of each request. The JDK client has no timeout
+ * for reading the body, so a body that stalls after its headers holds the caller until the connection drops.
+ */
+public class HttpClientTransport implements ArtifactoryTransport {
+    private static final String GZIP = "gzip";
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+
+    public HttpClientTransport(ArtifactorySettings artifactorySettings) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(artifactorySettings.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (artifactorySettings.getConnectTimeout() > 0) {
+            builder.connectTimeout(Duration.ofMillis(artifactorySettings.getConnectTimeout()));
+        }
+        this.httpClient = builder.build();
+        this.readTimeout = artifactorySettings.getReadTimeout() > 0 ? Duration.ofMillis(artifactorySettings.getReadTimeout()) : null;
+    }
+
+    @Override
+    public ResponseEntity<String> get(String url, HttpHeaders headers) {
+        return send(request(url, headers).GET().build());
+    }
+
+    @Override
+    public ResponseEntity<String> post(String url, HttpHeaders headers, String body) {
+        return send(request(url, headers).POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)).build());
+    }
+
+    @Override
+    public <T> T post(String url, HttpHeaders headers, String body, BodyReader<T> reader) throws IOException {
+        HttpRequest request = request(url, headers).POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)).build();
+        HttpResponse<InputStream> response = exchange(request);
+        InputStream decoded;
+        try {
+            decoded = decode(response);
+        } catch (IOException e) {
+            throw ioError(request, e);
+        }
+        // I/O errors while the body arrives are transport errors, errors of the reader itself are passed on
+        try (InputStream in = new TransportInputStream(decoded, request)) {
+            return reader.read(in);
+        }
+    }
+
+    private HttpRequest.Builder request(String url, HttpHeaders headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url));
+        headers.forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+        builder.setHeader(HttpHeaders.ACCEPT_ENCODING, GZIP);
+        if (readTimeout != null) {
+            builder.timeout(readTimeout);
+        }
+        return builder;
+    }
+
+    private ResponseEntity<String> send(HttpRequest request) {
+        HttpResponse<InputStream> response = exchange(request);
+        try (InputStream in = decode(response)) {
+            return ResponseEntity.status(response.statusCode()).headers(headers(response))
+                    .body(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw ioError(request, e);
+        }
+    }
+
+    // sends the request and raises the error of a failed status, the body of a successful response is left unread
+    private HttpResponse<InputStream> exchange(HttpRequest request) {
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            int statusCode = response.statusCode();
+            HttpStatus status = HttpStatus.resolve(statusCode);
+            if (status != null && !status.isError()) {
+                return response;
+            }
+            HttpHeaders responseHeaders = headers(response);
+            byte[] body;
+            try (InputStream in = decode(response)) {
+                body = in.readAllBytes();
+            }
+            if (status == null) {
+                throw new UnknownHttpStatusCodeException(statusCode, "", responseHeaders, body, StandardCharsets.UTF_8);
+            }
+            if (status.is4xxClientError()) {
+                throw HttpClientErrorException.create(status, status.getReasonPhrase(), responseHeaders, body, StandardCharsets.UTF_8);
+            }
+            throw HttpServerErrorException.create(status, status.getReasonPhrase(), responseHeaders, body, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw ioError(request, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted " + request.method() + " request for \"" + request.uri() + "\"");
+        }
+    }
+
+    private static HttpHeaders headers(HttpResponse<InputStream> response) {
+        HttpHeaders responseHeaders = new HttpHeaders();
+        response.headers().map().forEach(responseHeaders::addAll);
+        return responseHeaders;
+    }
+
+    private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        boolean gzipped = response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)
+                .map(GZIP::equalsIgnoreCase).orElse(false);
+        return gzipped ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    private static ResourceAccessException ioError(HttpRequest request, IOException e) {
+        return new ResourceAccessException("I/O error on " + request.method() + " request for \"" + request.uri() + "\": " + e.getMessage(), e);
+    }
+
+    /**
+     * Response body that raises its I/O errors as {@link ResourceAccessException}, like a buffered response does.
+     */
+    private static final class TransportInputStream extends FilterInputStream {
+        private final HttpRequest request;
+
+        private TransportInputStream(InputStream in, HttpRequest request) {
+            super(in);
+            this.request = request;
+        }
+
+        @Override
+        public int read() {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw ioError(request, e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw ioError(request, e);
+            }
+        }
+    }
+}
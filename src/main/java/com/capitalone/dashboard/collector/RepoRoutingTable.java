@@ -0,0 +1,233 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.RepoAndPattern;
+import com.capitalone.dashboard.model.ServerSetting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Routes of the configured servers, built once from the settings and keyed by server and repo or sub-repo.
+ * Patterns are compiled once, a sub-repo routes to its root repo and shares its patterns.
+ *
+ * Names are looked up on one server, so a repo name configured on several servers keeps each server's patterns
+ * and sub-repos. They are looked up exactly, or matched: the exact name first, otherwise the longest configured
+ * name the repo name contains, ties going to the first configured. When a name is configured more than once on
+ * a server, root repos win over sub-repos and the first configured wins over later ones. Server urls are
+ * compared without trailing slashes. Immutable and thread safe.
+ */
+public class RepoRoutingTable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RepoRoutingTable.class);
+
+    private final List<Pattern> allPatterns;
+    private final List<String> repos;
+    private final Map<String, ServerRoutes> serverRoutes;
+
+    public RepoRoutingTable(ArtifactorySettings artifactorySettings) {
+        List<Pattern> patternList = new ArrayList<>();
+        List<String> repoList = new ArrayList<>();
+        Map<String, ServerRoutes> serverRouteMap = new LinkedHashMap<>();
+        Map<String, Pattern> compiled = new HashMap<>();
+        List<ServerSetting> servers = artifactorySettings.getServers() == null ? Collections.emptyList() : artifactorySettings.getServers();
+        for (ServerSetting serverSetting : servers) {
+            ServerRoutes routes = serverRouteMap.computeIfAbsent(serverKey(serverSetting.getUrl()), url -> new ServerRoutes());
+            List<RepoAndPattern> repoAndPatterns = serverSetting.getRepoAndPatterns() == null ? Collections.emptyList() : serverSetting.getRepoAndPatterns();
+            for (RepoAndPattern repoAndPattern : repoAndPatterns) {
+                String repo = repoAndPattern.getRepo();
+                List<Pattern> patterns = compile(repoAndPattern.getPatterns(), compiled);
+                List<String> repoSubRepos = CollectionUtils.isEmpty(repoAndPattern.getSubRepos())
+                        ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(repoAndPattern.getSubRepos()));
+                patternList.addAll(patterns);
+                repoList.add(repo);
+                routes.add(new Route(repo, patterns, serverSetting.getUrl(), repoSubRepos));
+            }
+        }
+        serverRouteMap.values().forEach(ServerRoutes::seal);
+
+        this.allPatterns = Collections.unmodifiableList(patternList);
+        this.repos = Collections.unmodifiableList(repoList);
+        this.serverRoutes = Collections.unmodifiableMap(serverRouteMap);
+    }
+
+    private static List<Pattern> compile(List<String> patterns, Map<String, Pattern> compiled) {
+        if (patterns == null) return Collections.emptyList();
+        List<Pattern> result = new ArrayList<>(patterns.size());
+        for (String str : patterns) {
+            try {
+                result.add(compiled.computeIfAbsent(str, regex -> {
+                    Pattern p = Pattern.compile(regex);
+                    LOGGER.info("Adding Pattern " + p.pattern());
+                    return p;
+                }));
+            } catch (PatternSyntaxException e) {
+                LOGGER.error("Invalid pattern: " + e.getMessage());
+                throw e;
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static String serverKey(String serverUrl) {
+        return StringUtils.trimTrailingCharacter(serverUrl, '/');
+    }
+
+    private ServerRoutes server(String serverUrl) {
+        return serverRoutes.getOrDefault(serverKey(serverUrl), ServerRoutes.EMPTY);
+    }
+
+    /**
+     * @return the patterns of every repo of every server, in configuration order
+     */
+    public List<Pattern> getAll() {
+        return allPatterns;
+    }
+
+    /**
+     * @return the root repos of every server, in configuration order
+     */
+    public List<String> getRepos() {
+        return repos;
+    }
+
+    /**
+     * @param serverUrl url of a configured server
+     * @return the root repos of the server, in configuration order
+     */
+    public List<String> getRepos(String serverUrl) {
+        return server(serverUrl).repos;
+    }
+
+    /**
+     * @param serverUrl url of a configured server
+     * @return the sub-repos of every root repo of the server that has some
+     */
+    public Map<String, List<String>> getSubRepos(String serverUrl) {
+        return server(serverUrl).subRepos;
+    }
+
+    /**
+     * @param serverUrl url of a configured server
+     * @param repoName  repo or sub-repo name
+     * @return the route of the exact name on the server, or null if it is not configured there
+     */
+    public Route route(String serverUrl, String repoName) {
+        return repoName == null ? null : server(serverUrl).routes.get(repoName);
+    }
+
+    /**
+     * @param serverUrl url of a configured server
+     * @param repoName  repo or sub-repo name
+     * @return the route of the exact name on the server, else of the longest name configured there that it contains,
+     * or null if none matches
+     */
+    public Route match(String serverUrl, String repoName) {
+        if (repoName == null) return null;
+        ServerRoutes routes = server(serverUrl);
+        Route route = routes.routes.get(repoName);
+        if (route != null) return route;
+        for (String name : routes.namesByLength) {
+            if (repoName.contains(name)) return routes.routes.get(name);
+        }
+        return null;
+    }
+
+    /**
+     * @param serverUrl url of a configured server
+     * @param repoName  repo or sub-repo name
+     * @return the compiled patterns of the matching route, or null if none are configured for the repo on the server
+     */
+    public List<Pattern> get(String serverUrl, String repoName) {
+        Route route = match(serverUrl, repoName);
+        return route == null || route.getPatterns().isEmpty() ? null : route.getPatterns();
+    }
+
+    /**
+     * @param serverUrl url of a configured server
+     * @param repoName  repo or sub-repo name
+     * @return the root repo of the exact name on the server, or null if it is not configured there
+     */
+    public String getRootRepo(String serverUrl, String repoName) {
+        Route route = route(serverUrl, repoName);
+        return route == null ? null : route.getRepo();
+    }
+
+    /**
+     * The routes of one server, sealed once all its repos are added.
+     */
+    private static final class ServerRoutes {
+        private static final ServerRoutes EMPTY = new ServerRoutes().seal();
+
+        private List<String> repos = new ArrayList<>();
+        private Map<String, List<String>> subRepos = new LinkedHashMap<>();
+        private Map<String, Route> routes = new LinkedHashMap<>();
+        // configured names, longest first, for names that are not configured as is
+        private List<String> namesByLength;
+
+        private void add(Route route) {
+            repos.add(route.getRepo());
+            if (!route.getSubRepos().isEmpty()) subRepos.putIfAbsent(route.getRepo(), route.getSubRepos());
+            routes.putIfAbsent(route.getRepo(), route);
+        }
+
+        private ServerRoutes seal() {
+            // sub-repos after every root repo, so a root repo is never shadowed by a sub-repo of the same name
+            for (Route route : new ArrayList<>(routes.values())) {
+                route.getSubRepos().forEach(subRepo -> routes.putIfAbsent(subRepo, route));
+            }
+            List<String> names = new ArrayList<>(routes.keySet());
+            names.removeIf(Objects::isNull);
+            // stable, so equally long names stay in configuration order
+            names.sort(Comparator.comparingInt(String::length).reversed());
+            repos = Collections.unmodifiableList(repos);
+            subRepos = Collections.unmodifiableMap(subRepos);
+            routes = Collections.unmodifiableMap(routes);
+            namesByLength = Collections.unmodifiableList(names);
+            return this;
+        }
+    }
+
+    /**
+     * A configured root repo with its patterns, server and sub-repos.
+     */
+    public static final class Route {
+        private final String repo;
+        private final List<Pattern> patterns;
+        private final String serverUrl;
+        private final List<String> subRepos;
+
+        private Route(String repo, List<Pattern> patterns, String serverUrl, List<String> subRepos) {
+            this.repo = repo;
+            this.patterns = patterns;
+            this.serverUrl = serverUrl;
+            this.subRepos = subRepos;
+        }
+
+        public String getRepo() {
+            return repo;
+        }
+
+        public List<Pattern> getPatterns() {
+            return patterns;
+        }
+
+        public String getServerUrl() {
+            return serverUrl;
+        }
+
+        public List<String> getSubRepos() {
+            return subRepos;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.RepoCheckpoint;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The collection watermark of a repo, kept in its {@link RepoCheckpoint}.
+ *
+ * The watermark is the latest modified time of the rows whose writes are committed, so a re-deployed
+ * artifact or one whose properties changed is collected again. The next run queries from the watermark
+ * less the overlap, and the rows of that overlap that were already committed are recognised by full
+ * path, sha1 and modified time so they can be skipped. Rows observed during a run only move the
+ * watermark when {@link #commit()} is called after their writes are flushed, so a repo that fails part
+ * way resumes from what it actually wrote.
+ *
+ * Overlap rows are stored as 64 bit hashes and at most {@code maxRows} of the latest are kept, so the
+ * checkpoint stays far below the document size limit. Rows dropped by the cap are processed again, which
+ * only costs the work the skip saves. Not thread safe, each repo uses its own watermark.
+ */
+public class RepoWatermark {
+    private final RepoCheckpoint checkpoint;
+    private final long overlap;
+    private final int maxRows;
+    private final Set<Long> committed = new HashSet<>();
+    private final List<RepoCheckpoint.Row> pending = new ArrayList<>();
+
+    /**
+     * @param checkpoint checkpoint of the repo, updated on {@link #commit()}
+     * @param overlap    how far before the watermark the next query starts, in milliseconds
+     * @param maxRows    most overlap rows kept in the checkpoint
+     */
+    public RepoWatermark(RepoCheckpoint checkpoint, long overlap, int maxRows) {
+        this.checkpoint = checkpoint;
+        this.overlap = overlap;
+        this.maxRows = maxRows;
+        if (checkpoint.getOverlapRows() != null) {
+            checkpoint.getOverlapRows().forEach(row -> committed.add(row.getHash()));
+        }
+    }
+
+    public RepoCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * @return true once a row of the repo has been committed
+     */
+    public boolean hasWatermark() {
+        return checkpoint.getWatermark() > 0;
+    }
+
+    public long getWatermark() {
+        return checkpoint.getWatermark();
+    }
+
+    /**
+     * @return true if the row was committed by an earlier run or commit
+     */
+    public boolean isCommitted(String fullPath, String sha1, long modified) {
+        return committed.contains(hash(fullPath, sha1, modified));
+    }
+
+    public boolean isCommitted(BinaryArtifact binaryArtifact) {
+        return isCommitted(fullPath(binaryArtifact), binaryArtifact.getActual_sha1(), modified(binaryArtifact));
+    }
+
+    /**
+     * Records a row whose writes are pending until the next {@link #commit()}.
+     */
+    public void observe(String fullPath, String sha1, long modified) {
+        pending.add(new RepoCheckpoint.Row(hash(fullPath, sha1, modified), modified));
+    }
+
+    public void observe(BinaryArtifact binaryArtifact) {
+        observe(fullPath(binaryArtifact), binaryArtifact.getActual_sha1(), modified(binaryArtifact));
+    }
+
+    /**
+     * Moves the watermark over the observed rows and keeps the committed rows the next query overlaps with.
+     * Call once the writes of the observed rows are flushed.
+     */
+    public void commit() {
+        long watermark = checkpoint.getWatermark();
+        for (RepoCheckpoint.Row row : pending) {
+            watermark = Math.max(watermark, row.getModified());
+        }
+        long floor = watermark - overlap;
+        List<RepoCheckpoint.Row> rows = new ArrayList<>();
+        Set<Long> hashes = new HashSet<>();
+        List<RepoCheckpoint.Row> candidates = new ArrayList<>(pending);
+        if (checkpoint.getOverlapRows() != null) candidates.addAll(checkpoint.getOverlapRows());
+        for (RepoCheckpoint.Row row : candidates) {
+            // rows at or before the floor are outside the next query
+            if (row.getModified() > floor && hashes.add(row.getHash())) {
+                rows.add(row);
+            }
+        }
+        if (rows.size() > maxRows) {
+            // keep the latest, the earliest rows of the overlap are processed again
+            rows.sort(Comparator.comparingLong(RepoCheckpoint.Row::getModified).reversed());
+            rows = new ArrayList<>(rows.subList(0, maxRows));
+        }
+        checkpoint.setWatermark(watermark);
+        checkpoint.setOverlapRows(rows);
+        rows.forEach(row -> committed.add(row.getHash()));
+        pending.clear();
+    }
+
+    private static String fullPath(BinaryArtifact binaryArtifact) {
+        return binaryArtifact.getPath() + "/" + binaryArtifact.getCanonicalName();
+    }
+
+    // rows without a modified time fall back to their created time
+    private static long modified(BinaryArtifact binaryArtifact) {
+        return binaryArtifact.getModifiedTimeStamp() > 0 ? binaryArtifact.getModifiedTimeStamp() : binaryArtifact.getCreatedTimeStamp();
+    }
+
+    private static long hash(String fullPath, String sha1, long modified) {
+        return Hashing.murmur3_128().hashString(fullPath + '@' + sha1 + '@' + modified, StandardCharsets.UTF_8).asLong();
+    }
+}
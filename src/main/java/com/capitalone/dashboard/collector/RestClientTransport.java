@@ -0,0 +1,26 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.client.RestClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Default {@link ArtifactoryTransport}, sending requests through the shared core {@link RestClient}.
+ */
+public class RestClientTransport implements ArtifactoryTransport {
+    private final RestClient restClient;
+
+    public RestClientTransport(RestClient restClient) {
+        this.restClient = restClient;
+    }
+
+    @Override
+    public ResponseEntity<String> get(String url, HttpHeaders headers) {
+        return restClient.makeRestCallGet(url, headers);
+    }
+
+    @Override
+    public ResponseEntity<String> post(String url, HttpHeaders headers, String body) {
+        return restClient.makeRestCallPost(url, headers, body);
+    }
+}
@@ -0,0 +1,128 @@
+package com.capitalone.dashboard.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, typed view of a single element of an AQL {@code items.find(...)} response.
+ * Only the fields the collector reads are kept; everything else is skipped while parsing.
+ */
+public class AqlItem {
+    private String repo;
+    private String path;
+    private String name;
+    private String type;
+    private String created;
+    private String createdBy;
+    private String modified;
+    private String modifiedBy;
+    private String actualMd5;
+    private String actualSha1;
+    private List<String> virtualRepos = new ArrayList<>();
+    private Map<String, String> properties = new LinkedHashMap<>();
+
+    public String getRepo() {
+        return repo;
+    }
+
+    public void setRepo(String repo) {
+        this.repo = repo;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getCreated() {
+        return created;
+    }
+
+    public void setCreated(String created) {
+        this.created = created;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public String getModified() {
+        return modified;
+    }
+
+    public void setModified(String modified) {
+        this.modified = modified;
+    }
+
+    public String getModifiedBy() {
+        return modifiedBy;
+    }
+
+    public void setModifiedBy(String modifiedBy) {
+        this.modifiedBy = modifiedBy;
+    }
+
+    public String getActualMd5() {
+        return actualMd5;
+    }
+
+    public void setActualMd5(String actualMd5) {
+        this.actualMd5 = actualMd5;
+    }
+
+    public String getActualSha1() {
+        return actualSha1;
+    }
+
+    public void setActualSha1(String actualSha1) {
+        this.actualSha1 = actualSha1;
+    }
+
+    public List<String> getVirtualRepos() {
+        return virtualRepos;
+    }
+
+    public void setVirtualRepos(List<String> virtualRepos) {
+        this.virtualRepos = virtualRepos;
+    }
+
+    /**
+     * Artifact properties in response order. A repeated key keeps its last value.
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    public void setProperties(Map<String, String> properties) {
+        this.properties = properties;
+    }
+
+    public String getFullPath() {
+        return path + "/" + name;
+    }
+}
@@ -0,0 +1,126 @@
+package com.capitalone.dashboard.model;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of a submitted /artifactory/refresh request, updated by the refresh pool while it runs.
+ */
+public class RefreshJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final long submittedTime;
+    private volatile Status status = Status.RUNNING;
+    private volatile long completedTime;
+    private volatile String error;
+    private final AtomicInteger dashboardCount = new AtomicInteger();
+    private final AtomicInteger collectorItemsCount = new AtomicInteger();
+    private final AtomicInteger processedCollectorItemsCount = new AtomicInteger();
+    private final AtomicInteger failedCollectorItemsCount = new AtomicInteger();
+    private final AtomicInteger actualCollectorItemsDataCount = new AtomicInteger();
+    private final List<String> dashboardNotPresent = new CopyOnWriteArrayList<>();
+    private final List<String> dashboardNotConfiguredWithArtifactory = new CopyOnWriteArrayList<>();
+    private final List<String> dashboardFailed = new CopyOnWriteArrayList<>();
+    private final List<String> collectorItemDataNotFound = new CopyOnWriteArrayList<>();
+
+    public RefreshJob(String id, long submittedTime) {
+        this.id = id;
+        this.submittedTime = submittedTime;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getSubmittedTime() {
+        return submittedTime;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getCompletedTime() {
+        return completedTime;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isDone() {
+        return status != Status.RUNNING;
+    }
+
+    public void complete(long completedTime) {
+        this.completedTime = completedTime;
+        this.status = Status.COMPLETED;
+    }
+
+    public void fail(long completedTime, String error) {
+        this.completedTime = completedTime;
+        this.error = error;
+        this.status = Status.FAILED;
+    }
+
+    public int getDashboardCount() {
+        return dashboardCount.get();
+    }
+
+    public void addDashboards(int count) {
+        dashboardCount.addAndGet(count);
+    }
+
+    public int getCollectorItemsCount() {
+        return collectorItemsCount.get();
+    }
+
+    public void addCollectorItems(int count) {
+        collectorItemsCount.addAndGet(count);
+    }
+
+    public int getProcessedCollectorItemsCount() {
+        return processedCollectorItemsCount.get();
+    }
+
+    public void collectorItemProcessed() {
+        processedCollectorItemsCount.incrementAndGet();
+    }
+
+    public int getFailedCollectorItemsCount() {
+        return failedCollectorItemsCount.get();
+    }
+
+    public void collectorItemFailed() {
+        failedCollectorItemsCount.incrementAndGet();
+    }
+
+    public int getActualCollectorItemsDataCount() {
+        return actualCollectorItemsDataCount.get();
+    }
+
+    public void collectorItemDataPresent() {
+        actualCollectorItemsDataCount.incrementAndGet();
+    }
+
+    public List<String> getDashboardNotPresent() {
+        return dashboardNotPresent;
+    }
+
+    public List<String> getDashboardNotConfiguredWithArtifactory() {
+        return dashboardNotConfiguredWithArtifactory;
+    }
+
+    public List<String> getDashboardFailed() {
+        return dashboardFailed;
+    }
+
+    public List<String> getCollectorItemDataNotFound() {
+        return collectorItemDataNotFound;
+    }
+}
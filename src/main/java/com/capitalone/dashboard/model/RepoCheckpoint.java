@@ -0,0 +1,135 @@
+package com.capitalone.dashboard.model;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collection progress of a single repo on an instance.
+ *
+ * {@code start} is the lower bound of the query being paged through and {@code offset} the number
+ * of rows of it already processed and persisted. Both only hold for the run that set them, an
+ * interrupted run is resumed from the watermark.
+ * {@code watermark} is the latest modified time of the rows committed for the repo, and
+ * {@code overlapRows} the committed rows the next run's query overlaps with, stored as hashes and
+ * capped so the document stays small.
+ */
+@Document(collection = "artifactory_repo_checkpoints")
+public class RepoCheckpoint extends BaseModel {
+    private ObjectId collectorId;
+    private String instanceUrl;
+    private String repoName;
+    private long start;
+    private long offset;
+    private long lastUpdated;
+    private long watermark;
+    private List<Row> overlapRows = new ArrayList<>();
+
+    public RepoCheckpoint() {
+    }
+
+    public RepoCheckpoint(ObjectId collectorId, String instanceUrl, String repoName, long start) {
+        this.collectorId = collectorId;
+        this.instanceUrl = instanceUrl;
+        this.repoName = repoName;
+        this.start = start;
+    }
+
+    public ObjectId getCollectorId() {
+        return collectorId;
+    }
+
+    public void setCollectorId(ObjectId collectorId) {
+        this.collectorId = collectorId;
+    }
+
+    public String getInstanceUrl() {
+        return instanceUrl;
+    }
+
+    public void setInstanceUrl(String instanceUrl) {
+        this.instanceUrl = instanceUrl;
+    }
+
+    public String getRepoName() {
+        return repoName;
+    }
+
+    public void setRepoName(String repoName) {
+        this.repoName = repoName;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public void setStart(long start) {
+        this.start = start;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(long lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(long watermark) {
+        this.watermark = watermark;
+    }
+
+    public List<Row> getOverlapRows() {
+        return overlapRows;
+    }
+
+    public void setOverlapRows(List<Row> overlapRows) {
+        this.overlapRows = overlapRows;
+    }
+
+    /**
+     * A committed row, identified by a hash of its full path, sha1 and modified time.
+     */
+    public static class Row {
+        private long hash;
+        private long modified;
+
+        public Row() {
+        }
+
+        public Row(long hash, long modified) {
+            this.hash = hash;
+            this.modified = modified;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        public void setHash(long hash) {
+            this.hash = hash;
+        }
+
+        public long getModified() {
+            return modified;
+        }
+
+        public void setModified(long modified) {
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.ArtifactItem;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+
+/**
+ * Bulk writes of {@link ArtifactItem}s, complementing the per-document {@link ArtifactItemRepository}.
+ */
+public interface ArtifactItemBulkRepository {
+
+    /**
+     * Sets lastUpdated on all the artifact items in one update.
+     *
+     * @param ids         artifact items to touch
+     * @param lastUpdated new lastUpdated value
+     */
+    void updateLastUpdated(Collection<ObjectId> ids, long lastUpdated);
+}
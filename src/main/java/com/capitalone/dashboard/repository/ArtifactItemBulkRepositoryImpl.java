@@ -0,0 +1,28 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.ArtifactItem;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+@Component
+public class ArtifactItemBulkRepositoryImpl implements ArtifactItemBulkRepository {
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public ArtifactItemBulkRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void updateLastUpdated(Collection<ObjectId> ids, long lastUpdated) {
+        if (ids.isEmpty()) return;
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)), Update.update("lastUpdated", lastUpdated), ArtifactItem.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.Build;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk writes of {@link BinaryArtifact}s, complementing the per-document {@link BinaryArtifactRepository}.
+ */
+public interface BinaryArtifactBulkRepository {
+
+    /**
+     * Writes the artifacts in one unordered bulk operation. Each artifact replaces the document with its id,
+     * or is inserted when there is none; artifacts without an id are assigned one first.
+     *
+     * @param binaryArtifacts artifacts to write
+     */
+    void upsertAll(Collection<BinaryArtifact> binaryArtifacts);
+
+    /**
+     * Finds, in one aggregation, the latest artifact by timestamp for every version of the collector items.
+     *
+     * @param collectorItemIds collector items to look up
+     * @return one artifact per collectorItemId and artifactVersion
+     */
+    List<BinaryArtifact> findLatestByCollectorItemIds(Collection<ObjectId> collectorItemIds);
+
+    /**
+     * Finds, in one aggregation, the latest artifact by timestamp with build infos for each of the collector items.
+     *
+     * @param collectorItemIds collector items to look up
+     * @return at most one artifact per collectorItemId
+     */
+    List<BinaryArtifact> findLatestWithBuildInfosByCollectorItemIds(Collection<ObjectId> collectorItemIds);
+
+    /**
+     * Finds, in one query, the artifacts with any of the names and any of the versions. Callers match the exact
+     * name and version pairs they need.
+     *
+     * @param artifactNames    artifact names to look up
+     * @param artifactVersions artifact versions to look up
+     * @return the artifacts with one of the names and one of the versions
+     */
+    List<BinaryArtifact> findByArtifactNamesAndVersions(Collection<String> artifactNames, Collection<String> artifactVersions);
+
+    /**
+     * Finds the artifacts of a collector item with only the attributes that identify an artifact loaded:
+     * group id, module, version, name, classifier and extension.
+     *
+     * @param collectorItemId collector item to look up
+     * @return the artifacts of the collector item, attributes only
+     */
+    List<BinaryArtifact> findAttributesByCollectorItemId(ObjectId collectorItemId);
+
+    /**
+     * Links builds to every artifact of each collector item in one ordered bulk operation. Builds are matched by
+     * id, a build already linked to an artifact is replaced by the given one instead of being added again.
+     *
+     * @param buildsByCollectorItemId builds to link by collector item
+     */
+    void addBuilds(Map<ObjectId, List<Build>> buildsByCollectorItemId);
+
+    /**
+     * Deletes the artifacts with the ids in one operation.
+     *
+     * @param ids ids of the artifacts to delete
+     */
+    void deleteByIds(Collection<ObjectId> ids);
+}
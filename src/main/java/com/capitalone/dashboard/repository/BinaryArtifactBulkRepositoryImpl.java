@@ -0,0 +1,112 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.Build;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Component
+public class BinaryArtifactBulkRepositoryImpl implements BinaryArtifactBulkRepository {
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public BinaryArtifactBulkRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void upsertAll(Collection<BinaryArtifact> binaryArtifacts) {
+        if (binaryArtifacts.isEmpty()) return;
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BinaryArtifact.class);
+        for (BinaryArtifact binaryArtifact : binaryArtifacts) {
+            if (binaryArtifact.getId() == null) {
+                binaryArtifact.setId(ObjectId.get());
+            }
+            bulkOperations.replaceOne(Query.query(Criteria.where("_id").is(binaryArtifact.getId())), binaryArtifact,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        bulkOperations.execute();
+    }
+
+    @Override
+    public List<BinaryArtifact> findLatestByCollectorItemIds(Collection<ObjectId> collectorItemIds) {
+        if (collectorItemIds.isEmpty()) return Collections.emptyList();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("collectorItemId").in(collectorItemIds)),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "timestamp")),
+                Aggregation.group("collectorItemId", "artifactVersion").first(Aggregation.ROOT).as("latest"),
+                Aggregation.replaceRoot("latest"))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return mongoTemplate.aggregate(aggregation, BinaryArtifact.class, BinaryArtifact.class).getMappedResults();
+    }
+
+    @Override
+    public List<BinaryArtifact> findLatestWithBuildInfosByCollectorItemIds(Collection<ObjectId> collectorItemIds) {
+        if (collectorItemIds.isEmpty()) return Collections.emptyList();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("collectorItemId").in(collectorItemIds).and("buildInfos.0").exists(true)),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "timestamp")),
+                Aggregation.group("collectorItemId").first(Aggregation.ROOT).as("latest"),
+                Aggregation.replaceRoot("latest"))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return mongoTemplate.aggregate(aggregation, BinaryArtifact.class, BinaryArtifact.class).getMappedResults();
+    }
+
+    @Override
+    public List<BinaryArtifact> findByArtifactNamesAndVersions(Collection<String> artifactNames, Collection<String> artifactVersions) {
+        if (artifactNames.isEmpty() || artifactVersions.isEmpty()) return Collections.emptyList();
+        return mongoTemplate.find(Query.query(Criteria.where("artifactName").in(artifactNames)
+                .and("artifactVersion").in(artifactVersions)), BinaryArtifact.class);
+    }
+
+    @Override
+    public List<BinaryArtifact> findAttributesByCollectorItemId(ObjectId collectorItemId) {
+        Query query = Query.query(Criteria.where("collectorItemId").is(collectorItemId));
+        query.fields().include("artifactGroupId", "artifactModule", "artifactVersion", "artifactName",
+                "artifactClassifier", "artifactExtension");
+        return mongoTemplate.find(query, BinaryArtifact.class);
+    }
+
+    @Override
+    public void addBuilds(Map<ObjectId, List<Build>> buildsByCollectorItemId) {
+        BulkOperations bulkOperations = null;
+        for (Map.Entry<ObjectId, List<Build>> entry : buildsByCollectorItemId.entrySet()) {
+            if (entry.getValue().isEmpty()) continue;
+            if (bulkOperations == null) {
+                // ordered, each pull runs before the push of the same collector item
+                bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, BinaryArtifact.class);
+            }
+            Query query = Query.query(Criteria.where("collectorItemId").is(entry.getKey()));
+            List<ObjectId> buildIds = entry.getValue().stream().map(Build::getId).collect(Collectors.toList());
+            // a pull and a push, since $addToSet only skips builds whose embedded documents are identical
+            bulkOperations.updateMulti(query, new Update().pull("buildInfos", new Document("_id", new Document("$in", buildIds))));
+            bulkOperations.updateMulti(query, new Update().push("buildInfos").each(entry.getValue().toArray()));
+        }
+        if (bulkOperations != null) {
+            bulkOperations.execute();
+        }
+    }
+
+    @Override
+    public void deleteByIds(Collection<ObjectId> ids) {
+        if (ids.isEmpty()) return;
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), BinaryArtifact.class);
+    }
+}
@@ -0,0 +1,30 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.CollectorItem;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bulk reads and writes of {@link CollectorItem}s, complementing the per-document {@link CollectorItemRepository}.
+ */
+public interface CollectorItemBulkRepository {
+
+    /**
+     * Finds the collector items with any of the artifact names and any of the paths in one query. Callers pairing
+     * names with paths filter the result.
+     *
+     * @param artifactNames values of options.artifactName
+     * @param paths         values of options.path
+     * @return the matching collector items
+     */
+    List<CollectorItem> findByArtifactNamesAndPaths(Collection<String> artifactNames, Collection<String> paths);
+
+    /**
+     * Flags all the collector items as pushed in one update.
+     *
+     * @param ids collector items to flag
+     */
+    void setPushed(Collection<ObjectId> ids);
+}
@@ -0,0 +1,37 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.CollectorItem;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@Component
+public class CollectorItemBulkRepositoryImpl implements CollectorItemBulkRepository {
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public CollectorItemBulkRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<CollectorItem> findByArtifactNamesAndPaths(Collection<String> artifactNames, Collection<String> paths) {
+        if (artifactNames.isEmpty() || paths.isEmpty()) return Collections.emptyList();
+        return mongoTemplate.find(Query.query(Criteria.where("options.artifactName").in(artifactNames)
+                .and("options.path").in(paths)), CollectorItem.class);
+    }
+
+    @Override
+    public void setPushed(Collection<ObjectId> ids) {
+        if (ids.isEmpty()) return;
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)), Update.update("pushed", true), CollectorItem.class);
+    }
+}
@@ -0,0 +1,20 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.GenericCollectorItem;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+
+/**
+ * Bulk writes of {@link GenericCollectorItem}s, complementing the per-document {@link GenericCollectorItemRepository}.
+ */
+public interface GenericCollectorItemBulkRepository {
+
+    /**
+     * Sets processTime on all the generic items in one update, marking them as processed.
+     *
+     * @param ids         generic items to mark
+     * @param processTime new processTime value
+     */
+    void updateProcessTime(Collection<ObjectId> ids, long processTime);
+}
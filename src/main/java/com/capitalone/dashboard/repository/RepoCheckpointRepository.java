@@ -0,0 +1,10 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.RepoCheckpoint;
+import org.bson.types.ObjectId;
+import org.springframework.data.repository.CrudRepository;
+
+public interface RepoCheckpointRepository extends CrudRepository<RepoCheckpoint, ObjectId> {
+
+    RepoCheckpoint findByCollectorIdAndInstanceUrlAndRepoName(ObjectId collectorId, String instanceUrl, String repoName);
+}
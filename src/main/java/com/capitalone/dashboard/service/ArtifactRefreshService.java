@@ -0,0 +1,227 @@
+package com.capitalone.dashboard.service;
+
+import com.capitalone.dashboard.collector.ArtifactorySettings;
+import com.capitalone.dashboard.collector.DefaultArtifactoryClient;
+import com.capitalone.dashboard.model.ArtifactItem;
+import com.capitalone.dashboard.model.ArtifactSyncRequest;
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.CollectorItem;
+import com.capitalone.dashboard.model.CollectorType;
+import com.capitalone.dashboard.model.Component;
+import com.capitalone.dashboard.model.Dashboard;
+import com.capitalone.dashboard.model.RefreshJob;
+import com.capitalone.dashboard.repository.ArtifactItemRepository;
+import com.capitalone.dashboard.repository.BinaryArtifactRepository;
+import com.capitalone.dashboard.repository.ComponentRepository;
+import com.capitalone.dashboard.repository.DashboardRepository;
+import com.capitalone.dashboard.util.ArtifactUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs /artifactory/refresh requests as background jobs. A job resolves its dashboards on a coordinator thread
+ * and refreshes each artifact collector item on a pool bounded by artifactory.refreshParallelism, shared by all
+ * jobs. Refreshes of the same collector item, by one job or several, run one after the other so they do not
+ * both create its binary artifacts. A dashboard or collector item that fails is recorded on the job and the
+ * others go on, and a job only finishes once every item it submitted has settled. Jobs are kept in memory for
+ * polling until an hour after they finish.
+ */
+@Service
+public class ArtifactRefreshService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactRefreshService.class);
+    private static final long JOB_RETENTION = TimeUnit.HOURS.toMillis(1);
+
+    private final DefaultArtifactoryClient artifactoryClient;
+    private final ArtifactItemRepository artifactItemRepository;
+    private final ComponentRepository componentRepository;
+    private final DashboardRepository dashboardRepository;
+    private final BinaryArtifactRepository binaryArtifactRepository;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+    private final Map<String, RefreshJob> jobs = new ConcurrentHashMap<>();
+    // the latest refresh submitted for each collector item, until it settles
+    private final Map<ObjectId, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ArtifactRefreshService(DefaultArtifactoryClient artifactoryClient,
+                                  ArtifactItemRepository artifactItemRepository,
+                                  ComponentRepository componentRepository,
+                                  DashboardRepository dashboardRepository,
+                                  BinaryArtifactRepository binaryArtifactRepository,
+                                  ArtifactorySettings artifactorySettings) {
+        this.artifactoryClient = artifactoryClient;
+        this.artifactItemRepository = artifactItemRepository;
+        this.componentRepository = componentRepository;
+        this.dashboardRepository = dashboardRepository;
+        this.binaryArtifactRepository = binaryArtifactRepository;
+        this.coordinator = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("artifactory-refresh-job-%d").setDaemon(true).build());
+        this.workers = Executors.newFixedThreadPool(Math.max(1, artifactorySettings.getRefreshParallelism()),
+                new ThreadFactoryBuilder().setNameFormat("artifactory-refresh-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Starts refreshing the dashboards of the request in the background.
+     *
+     * @return the submitted job, to poll with {@link #getJob(String)}
+     */
+    public RefreshJob submit(ArtifactSyncRequest request) {
+        evictFinishedJobs();
+        RefreshJob job = new RefreshJob(UUID.randomUUID().toString(), System.currentTimeMillis());
+        jobs.put(job.getId(), job);
+        // only added to on the coordinator and read once scheduling is done
+        List<CompletableFuture<Void>> items = new ArrayList<>();
+        CompletableFuture.runAsync(() -> schedule(job, request, items), coordinator)
+                // the submitted items settle before the job finishes, also when scheduling stopped part way
+                .handle((result, e) -> CompletableFuture.allOf(items.toArray(new CompletableFuture[0]))
+                        .handle((itemsResult, itemError) -> e != null ? e : itemError))
+                .thenCompose(Function.identity())
+                .thenAccept(e -> finish(job, e));
+        return job;
+    }
+
+    /**
+     * @return the job, or null if it is unknown or was evicted
+     */
+    public RefreshJob getJob(String id) {
+        evictFinishedJobs();
+        return jobs.get(id);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void evictFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - JOB_RETENTION;
+        jobs.values().removeIf(job -> job.isDone() && job.getCompletedTime() < cutoff);
+    }
+
+    private void schedule(RefreshJob job, ArtifactSyncRequest request, List<CompletableFuture<Void>> items) {
+        List<String> dashboards = request.getDashboards() == null ? new ArrayList<>() : request.getDashboards();
+        for (String dashboard : dashboards) {
+            List<Dashboard> ds;
+            try {
+                ds = dashboardRepository.findByTitle(dashboard);
+            } catch (RuntimeException e) {
+                dashboardFailed(job, dashboard, e);
+                continue;
+            }
+            if (CollectionUtils.isEmpty(ds)) {
+                job.getDashboardNotPresent().add(dashboard);
+                continue;
+            }
+            job.addDashboards(ds.size());
+            for (Dashboard d : ds) {
+                try {
+                    scheduleDashboard(job, request, dashboard, d, items);
+                } catch (RuntimeException e) {
+                    dashboardFailed(job, dashboard, e);
+                }
+            }
+        }
+    }
+
+    private void scheduleDashboard(RefreshJob job, ArtifactSyncRequest request, String dashboard, Dashboard d,
+                                   List<CompletableFuture<Void>> items) {
+        List<Component> components = d.getApplication() == null ? null : d.getApplication().getComponents();
+        Component component = CollectionUtils.isEmpty(components) || components.get(0) == null ? null
+                : componentRepository.findById(components.get(0).getId()).orElse(null);
+        List<CollectorItem> collectorItems = component == null ? null : component.getCollectorItems().get(CollectorType.Artifact);
+        if (CollectionUtils.isEmpty(collectorItems)) {
+            job.getDashboardNotConfiguredWithArtifactory().add(dashboard);
+            return;
+        }
+        job.addCollectorItems(collectorItems.size());
+        LOGGER.info("dashboard name=" + dashboard + ", artifact collector-Items=" + collectorItems.size());
+        for (CollectorItem c : collectorItems) {
+            items.add(scheduleItem(job, request, c));
+        }
+    }
+
+    // chained after the refresh of the item already in flight, whatever its outcome
+    private CompletableFuture<Void> scheduleItem(RefreshJob job, ArtifactSyncRequest request, CollectorItem c) {
+        CompletableFuture<Void> item = inFlight.compute(c.getId(), (id, previous) ->
+                (previous == null ? CompletableFuture.<Void>completedFuture(null) : previous.handle((result, e) -> (Void) null))
+                        .thenRunAsync(() -> refreshItem(job, request, c), workers));
+        // registered outside compute, the item may already be done and would update the map from within
+        item.whenComplete((result, e) -> inFlight.remove(c.getId(), item));
+        return item;
+    }
+
+    private void dashboardFailed(RefreshJob job, String dashboard, RuntimeException e) {
+        job.getDashboardFailed().add(dashboard);
+        LOGGER.error("refresh job=" + job.getId() + " failed for dashboard=" + dashboard + ": " + e.getMessage(), e);
+    }
+
+    private void refreshItem(RefreshJob job, ArtifactSyncRequest request, CollectorItem c) {
+        try {
+            ArtifactItem artifactItem = new ArtifactItem((String) c.getOptions().get("repoName"), (String) c.getOptions().get("artifactName"), (String) c.getOptions().get("path"), (String) c.getOptions().get("instanceUrl"));
+            artifactItem.setId(c.getId());
+            artifactItem.setDescription(c.getDescription());
+            ArtifactUtil.normalize(artifactItem);
+            artifactItem.setEnabled(true);
+            artifactItem.setPushed(c.isPushed());
+            artifactItem.setCollectorId(c.getCollectorId());
+            artifactItem.setLastUpdated(c.getLastUpdated());
+            if (!request.isMetrics()) {
+                List<BinaryArtifact> updated = artifactoryClient.getArtifacts(artifactItem, artifactoryClient.getPattern(artifactItem.getInstanceUrl(), artifactItem.getRepoName()));
+                if (CollectionUtils.isEmpty(updated)) {
+                    job.getCollectorItemDataNotFound().add("repoName=" + artifactItem.getRepoName() + ", artifactName=" + artifactItem.getArtifactName() + ", path=" + artifactItem.getPath() + " has no data");
+                }
+            }
+            List<BinaryArtifact> existing = binaryArtifactRepository.findByCollectorItemIdAndTimestampIsBetweenOrderByTimestampDesc(c.getId(), request.getStartTime(), request.getEndTime());
+            if (!CollectionUtils.isEmpty(existing)) {
+                job.collectorItemDataPresent();
+            }
+            LOGGER.info("artifact name=" + c.getOptions().get("artifactName") + ", artifactRepo=" + c.getOptions().get("repoName") + ", artifactPath=" + c.getOptions().get("path") + ", isBinaryData=" + CollectionUtils.isEmpty(existing));
+            artifactItemRepository.save(artifactItem);
+        } catch (RuntimeException e) {
+            job.collectorItemFailed();
+            LOGGER.error("refresh job=" + job.getId() + " failed for collectorItem=" + c.getId() + ": " + e.getMessage(), e);
+        } finally {
+            job.collectorItemProcessed();
+        }
+    }
+
+    private void finish(RefreshJob job, Throwable e) {
+        if (e != null) {
+            LOGGER.error("refresh job=" + job.getId() + " failed: " + e.getMessage(), e);
+            job.fail(System.currentTimeMillis(), e.getMessage());
+            return;
+        }
+        job.complete(System.currentTimeMillis());
+        LOGGER.info("==================== DASHBOARDS NOT PRESENT ==========================");
+        job.getDashboardNotPresent().forEach(LOGGER::info);
+
+        LOGGER.info("==================== DASHBOARDS NOT CONFIGURED ==========================");
+        job.getDashboardNotConfiguredWithArtifactory().forEach(LOGGER::info);
+
+        LOGGER.info("==================== DASHBOARDS FAILED ==========================");
+        job.getDashboardFailed().forEach(LOGGER::info);
+
+        LOGGER.info("==================== COLLECTORITEMS NO DATA FOUND ==========================");
+        job.getCollectorItemDataNotFound().forEach(LOGGER::info);
+        LOGGER.info("refresh job=" + job.getId() + " Total dashboards=" + job.getDashboardCount() + ", total collectorItems=" + job.getCollectorItemsCount()
+                + ", actualCollectorItemsDataCount=" + job.getActualCollectorItemsDataCount());
+    }
+}
@@ -0,0 +1,99 @@
+package com.capitalone.dashboard.service;
+
+import com.capitalone.dashboard.collector.ArtifactorySettings;
+import com.capitalone.dashboard.collector.DefaultArtifactoryClient;
+import com.capitalone.dashboard.model.ArtifactItem;
+import com.capitalone.dashboard.model.ArtifactVersionRequest;
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.Collector;
+import com.capitalone.dashboard.repository.ArtifactItemRepository;
+import com.capitalone.dashboard.repository.CollectorRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Looks up the binary artifacts of a version for /artifactory/artifactByVersion.
+ *
+ * Results are cached per artifact item by (id, instanceUrl, repo, path, version) for artifactory.versionCacheTtl
+ * milliseconds, 0 disables the cache. A cached result answers any later start time by dropping the artifacts
+ * created before it. A cache hit skips the client, whose lookup for the same item already wrote the binary
+ * artifacts, and items sharing a path keep their own entries. Empty results are not cached, so a version is
+ * found as soon as it is published.
+ */
+@Service
+public class ArtifactVersionService {
+    private static final long MAX_CACHED_VERSIONS = 10_000L;
+
+    private final DefaultArtifactoryClient artifactoryClient;
+    private final ArtifactItemRepository artifactItemRepository;
+    private final CollectorRepository collectorRepository;
+    private final Cache<List<Object>, CachedArtifacts> cache;
+
+    @Autowired
+    public ArtifactVersionService(DefaultArtifactoryClient artifactoryClient,
+                                  ArtifactItemRepository artifactItemRepository,
+                                  CollectorRepository collectorRepository,
+                                  ArtifactorySettings artifactorySettings) {
+        this.artifactoryClient = artifactoryClient;
+        this.artifactItemRepository = artifactItemRepository;
+        this.collectorRepository = collectorRepository;
+        this.cache = artifactorySettings.getVersionCacheTtl() <= 0 ? null : CacheBuilder.newBuilder()
+                .expireAfterWrite(artifactorySettings.getVersionCacheTtl(), TimeUnit.MILLISECONDS)
+                .maximumSize(MAX_CACHED_VERSIONS)
+                .build();
+    }
+
+    /**
+     * @return the binary artifacts of the version for every artifact item matching the request
+     */
+    public List<BinaryArtifact> findArtifactsByVersion(ArtifactVersionRequest request) {
+        Collector collector = collectorRepository.findByName("Artifactory");
+        List<BinaryArtifact> bas = new ArrayList<>();
+        if (Objects.nonNull(collector)) {
+            List<ArtifactItem> matchedArtifactItems = artifactItemRepository.findArtifactItemByOptions(collector.getId(), request.getArtifactName(), request.getRepoName(), request.getPath(), request.getInstanceUrl());
+            for (ArtifactItem artifactItem : matchedArtifactItems) {
+                bas.addAll(getArtifactsForVersion(artifactItem, request.getArtifactVersion(), request.getStartTime()));
+            }
+        }
+        return bas;
+    }
+
+    private List<BinaryArtifact> getArtifactsForVersion(ArtifactItem artifactItem, String version, long startTime) {
+        List<Object> key = Arrays.asList(artifactItem.getId(), artifactItem.getInstanceUrl(), artifactItem.getRepoName(), artifactItem.getPath(), version);
+        CachedArtifacts cached = cache == null ? null : cache.getIfPresent(key);
+        if (cached != null && cached.startTime <= startTime) {
+            return cached.since(startTime);
+        }
+        List<BinaryArtifact> bas = artifactoryClient.getArtifactsForVersion(artifactItem, version, startTime, artifactoryClient.getPattern(artifactItem.getInstanceUrl(), artifactItem.getRepoName()));
+        if (cache != null && !bas.isEmpty()) {
+            cache.put(key, new CachedArtifacts(startTime, bas));
+        }
+        return bas;
+    }
+
+    private static final class CachedArtifacts {
+        private final long startTime;
+        private final List<BinaryArtifact> binaryArtifacts;
+
+        private CachedArtifacts(long startTime, List<BinaryArtifact> binaryArtifacts) {
+            this.startTime = startTime;
+            this.binaryArtifacts = Collections.unmodifiableList(new ArrayList<>(binaryArtifacts));
+        }
+
+        // the AQL query returns the artifacts created after the start time
+        private List<BinaryArtifact> since(long start) {
+            if (start == startTime) return binaryArtifacts;
+            return binaryArtifacts.stream().filter(ba -> ba.getCreatedTimeStamp() > start).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.capitalone.dashboard.util;
+
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.google.common.collect.MapMaker;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the artifact coordinates from a path with a single pattern.
+ *
+ * Which of the named groups (group/module/artifact/version/classifier/ext) the pattern declares is
+ * resolved once, when the extractor is created, so matching a path only reads the groups that exist.
+ */
+public final class ArtifactPathExtractor {
+	private static final String ORG_REGEX_GROUP = "group";
+	private static final String MODULE_REGEX_GROUP = "module";
+	private static final String ARTIFACT_REGEX_GROUP = "artifact";
+	private static final String VERSION_REGEX_GROUP = "version";
+	private static final String CLASSIFIER_REGEX_GROUP = "classifier";
+	private static final String EXT_REGEX_GROUP = "ext";
+
+	// weak identity keys, extractors go away with the patterns they were made for
+	private static final ConcurrentMap<Pattern, ArtifactPathExtractor> EXTRACTORS = new MapMaker().weakKeys().makeMap();
+
+	private final Pattern pattern;
+	private final boolean hasOrg;
+	private final boolean hasModule;
+	private final boolean hasArtifact;
+	private final boolean hasVersion;
+	private final boolean hasClassifier;
+	private final boolean hasExt;
+
+	private ArtifactPathExtractor(Pattern pattern) {
+		this.pattern = pattern;
+		String regex = pattern.pattern();
+		this.hasOrg = declares(regex, ORG_REGEX_GROUP);
+		this.hasModule = declares(regex, MODULE_REGEX_GROUP);
+		this.hasArtifact = declares(regex, ARTIFACT_REGEX_GROUP);
+		this.hasVersion = declares(regex, VERSION_REGEX_GROUP);
+		this.hasClassifier = declares(regex, CLASSIFIER_REGEX_GROUP);
+		this.hasExt = declares(regex, EXT_REGEX_GROUP);
+	}
+
+	private static boolean declares(String regex, String group) {
+		return regex.contains("<" + group + ">");
+	}
+
+	/**
+	 * @return the extractor for the pattern, created on first use
+	 */
+	public static ArtifactPathExtractor of(Pattern pattern) {
+		return EXTRACTORS.computeIfAbsent(pattern, ArtifactPathExtractor::new);
+	}
+
+	public Pattern getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * @return the coordinates found in the path, or null if the path does not match
+	 */
+	public BinaryArtifact parse(String path) {
+		Matcher matcher = pattern.matcher(path);
+		if (!matcher.matches()) return null;
+		BinaryArtifact ba = new BinaryArtifact();
+		extract(matcher, ba);
+		return ba;
+	}
+
+	/**
+	 * Sets the coordinates found in the path on the result.
+	 *
+	 * @return true if the path matches and every declared group other than ext has a value
+	 */
+	public boolean validParse(BinaryArtifact result, String path) {
+		Matcher matcher = pattern.matcher(path);
+		if (!matcher.matches()) return false;
+		extract(matcher, result);
+		return (!hasOrg || StringUtils.isNotEmpty(result.getArtifactGroupId()))
+				&& (!hasModule || StringUtils.isNotEmpty(result.getArtifactModule()))
+				&& (!hasVersion || StringUtils.isNotEmpty(result.getArtifactVersion()))
+				&& (!hasArtifact || StringUtils.isNotEmpty(result.getArtifactName()))
+				&& (!hasClassifier || StringUtils.isNotEmpty(result.getArtifactClassifier()));
+	}
+
+	private void extract(Matcher matcher, BinaryArtifact ba) {
+		String org = hasOrg ? matcher.group(ORG_REGEX_GROUP) : null;
+		ba.setArtifactGroupId(org == null ? null : org.replace('/', '.'));
+		ba.setArtifactModule(hasModule ? matcher.group(MODULE_REGEX_GROUP) : null);
+		ba.setArtifactVersion(hasVersion ? matcher.group(VERSION_REGEX_GROUP) : null);
+		ba.setArtifactName(hasArtifact ? matcher.group(ARTIFACT_REGEX_GROUP) : null);
+		ba.setArtifactClassifier(hasClassifier ? matcher.group(CLASSIFIER_REGEX_GROUP) : null);
+		ba.setArtifactExtension(hasExt ? matcher.group(EXT_REGEX_GROUP) : null);
+	}
+}
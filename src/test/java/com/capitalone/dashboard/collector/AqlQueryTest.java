@@ -0,0 +1,45 @@
+package com.capitalone.dashboard.collector;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class AqlQueryTest {
+
+    @Test
+    public void testCriteriaAndProjection() {
+        String query = AqlQuery.items()
+                .gt(AqlQuery.CREATED, "2018-10-11T14:27:16.031Z")
+                .eq(AqlQuery.REPO, "release")
+                .match(AqlQuery.PATH, "com/mycompany/*")
+                .include(AqlQuery.REPO, AqlQuery.PATH, AqlQuery.NAME)
+                .build();
+        assertThat(query, is("items.find({\"created\":{\"$gt\":\"2018-10-11T14:27:16.031Z\"},\"repo\":{\"$eq\":\"release\"},"
+                + "\"path\":{\"$match\":\"com/mycompany/*\"}}).include(\"repo\",\"path\",\"name\")"));
+    }
+
+    @Test
+    public void testSortAndPage() {
+        AqlQuery query = AqlQuery.items().eq(AqlQuery.REPO, "release").sortAsc(AqlQuery.NAME);
+        query.sortAsc(AqlQuery.MODIFIED, AqlQuery.PATH);
+        assertThat(query.page(100, 50).build(), is("items.find({\"repo\":{\"$eq\":\"release\"}})"
+                + ".sort({\"$asc\":[\"modified\",\"path\"]}).offset(100).limit(50)"));
+    }
+
+    @Test
+    public void testOr() {
+        String query = AqlQuery.items()
+                .eq(AqlQuery.REPO, "release")
+                .or(AqlQuery.items().match(AqlQuery.PATH, "*1.0*"), AqlQuery.items().match(AqlQuery.NAME, "*1.0*"))
+                .build();
+        assertThat(query, is("items.find({\"repo\":{\"$eq\":\"release\"},"
+                + "\"$or\":[{\"path\":{\"$match\":\"*1.0*\"}},{\"name\":{\"$match\":\"*1.0*\"}}]})"));
+    }
+
+    @Test
+    public void testValuesAreEscaped() {
+        String query = AqlQuery.items().eq(AqlQuery.REPO, "re\"lease\\").build();
+        assertThat(query, is("items.find({\"repo\":{\"$eq\":\"re\\\"lease\\\\\"}})"));
+    }
+}
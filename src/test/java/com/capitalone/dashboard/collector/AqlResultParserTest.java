@@ -0,0 +1,80 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.AqlItem;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class AqlResultParserTest {
+
+    @Test
+    public void testParseBinaryArtifacts() throws Exception {
+        List<AqlItem> items = parse("binaryArtifacts.json");
+        assertThat(items.size(), is(1));
+        AqlItem item = items.get(0);
+        assertThat(item.getRepo(), is("release"));
+        assertThat(item.getPath(), is("placeholder/test-dev/1"));
+        assertThat(item.getName(), is("manifest.json"));
+        assertThat(item.getFullPath(), is("placeholder/test-dev/1/manifest.json"));
+        assertThat(item.getType(), is("file"));
+        assertThat(item.getCreated(), is("2018-10-11T14:27:16.031Z"));
+        assertThat(item.getCreatedBy(), is("robot"));
+        assertThat(item.getModified(), is("2018-10-11T14:38:56.471Z"));
+        assertThat(item.getModifiedBy(), is("robot"));
+        assertThat(item.getActualMd5(), is("111aadc11ed11b1111df111d16d6c8d821112f1"));
+        assertThat(item.getActualSha1(), is("111aadc11ed11b1111df111d16d6c8d821112f1"));
+        assertThat(item.getVirtualRepos(), is(Arrays.asList("docker-managed")));
+        assertThat(item.getProperties().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testParseProperties() throws Exception {
+        List<AqlItem> items = parse("mavenArtifacts.json");
+        assertThat(items.size(), is(1));
+        AqlItem item = items.get(0);
+        assertThat(item.getType(), nullValue());
+        assertThat(item.getProperties().size(), is(8));
+        assertThat(item.getProperties().get("build.url"), is("http://localhost:8080/job/myname_helloworld/1/"));
+        assertThat(item.getProperties().get("vcs_revision"), is("943a7c299ec551d985356e5ad52766b38c52e893"));
+        assertThat(new ArrayList<>(item.getProperties().keySet()).get(0), is("build.url"));
+    }
+
+    @Test
+    public void testParseEmptyResults() throws Exception {
+        assertThat(parse("emptyArtifacts.json").size(), is(0));
+    }
+
+    @Test
+    public void testParseEmptyBody() throws Exception {
+        assertThat(AqlResultParser.parse("", item -> { }), is(0));
+    }
+
+    @Test
+    public void testParseResultsAfterRange() throws Exception {
+        String json = "{\"range\":{\"start_pos\":0,\"total\":2},\"results\":["
+                + "{\"repo\":\"r\",\"path\":\"a/b\",\"name\":\"c.jar\",\"size\":10,\"extra\":{\"nested\":[1,2]}},"
+                + "{\"repo\":\"r\",\"path\":\"a/b\",\"name\":\"d.jar\",\"properties\":[{\"key\":\"k\",\"value\":\"1\"},{\"key\":\"k\",\"value\":\"2\"}]}"
+                + "]}";
+        List<AqlItem> items = new ArrayList<>();
+        int count = AqlResultParser.parse(json, items::add);
+        assertThat(count, is(2));
+        assertThat(items.get(0).getName(), is("c.jar"));
+        assertThat(items.get(1).getName(), is("d.jar"));
+        assertThat(items.get(1).getProperties().get("k"), is("2"));
+    }
+
+    private List<AqlItem> parse(String fileName) throws Exception {
+        List<AqlItem> items = new ArrayList<>();
+        try (InputStream in = DefaultArtifactoryClient.class.getResourceAsStream(fileName)) {
+            AqlResultParser.parse(in, items::add);
+        }
+        return items;
+    }
+}
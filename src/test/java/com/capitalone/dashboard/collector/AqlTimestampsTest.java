@@ -0,0 +1,90 @@
+package com.capitalone.dashboard.collector;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class AqlTimestampsTest {
+    private static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSX";
+
+    @Test
+    public void testParseMatchesSimpleDateFormat() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat(PATTERN);
+        String[] timestamps = {"2018-10-11T14:38:56.471Z", "2018-10-11T14:38:56.471+02:00", "2018-10-11T14:38:56.471-0500",
+                "2020-02-29T23:59:59.999+01", "1969-12-31T23:59:59.000Z", "2000-01-01T00:00:00.000Z", "2024-03-31T01:02:03.004Z"};
+        for (String timestamp : timestamps) {
+            assertThat(timestamp, AqlTimestamps.parse(timestamp), is(format.parse(timestamp).getTime()));
+        }
+    }
+
+    @Test
+    public void testMinuteOffsets() {
+        // SimpleDateFormat's X only reads the hours of an offset
+        assertThat(AqlTimestamps.parse("2018-10-11T14:38:56.471-0530"), is(1539268736471L + 19800000L));
+        assertThat(AqlTimestamps.parse("2018-10-11T14:38:56.471+05:30"), is(1539268736471L - 19800000L));
+    }
+
+    @Test
+    public void testFormatIsUtcAndRoundTrips() {
+        assertThat(AqlTimestamps.format(1539268736471L), is("2018-10-11T14:38:56.471Z"));
+        assertThat(AqlTimestamps.parse(AqlTimestamps.format(0L)), is(0L));
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void testInvalidDay() {
+        AqlTimestamps.parse("2019-02-29T00:00:00.000Z");
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void testNotATimestamp() {
+        AqlTimestamps.parse("2018-10-11 14:38:56");
+    }
+
+    @Test
+    public void testConcurrentParseAndFormat() throws Exception {
+        Random random = new Random(42);
+        int samples = 2000;
+        long[] expected = new long[samples];
+        String[] texts = new String[samples];
+        SimpleDateFormat format = new SimpleDateFormat(PATTERN);
+        for (int i = 0; i < samples; i++) {
+            expected[i] = 1_500_000_000_000L + (long) (random.nextDouble() * 300_000_000_000L);
+            texts[i] = format.format(new java.util.Date(expected[i]));
+        }
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                tasks.add(() -> {
+                    int mismatches = 0;
+                    for (int round = 0; round < 20; round++) {
+                        for (int i = first; i < samples; i += 3) {
+                            if (AqlTimestamps.parse(texts[i]) != expected[i]) mismatches++;
+                            if (AqlTimestamps.parse(AqlTimestamps.format(expected[i])) != expected[i]) mismatches++;
+                        }
+                    }
+                    return mismatches;
+                });
+            }
+            for (Future<Integer> result : executor.invokeAll(tasks)) {
+                assertThat(result.get(), is(0));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
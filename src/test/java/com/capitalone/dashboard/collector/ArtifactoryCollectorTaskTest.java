@@ -0,0 +1,385 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.ArtifactItem;
+import com.capitalone.dashboard.model.ArtifactoryCollectionMode;
+import com.capitalone.dashboard.model.ArtifactoryCollector;
+import com.capitalone.dashboard.model.ArtifactoryRepo;
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.Build;
+import com.capitalone.dashboard.model.CollectorItem;
+import com.capitalone.dashboard.model.GenericCollectorItem;
+import com.capitalone.dashboard.model.RepoAndPattern;
+import com.capitalone.dashboard.model.RepoCheckpoint;
+import com.capitalone.dashboard.model.ServerSetting;
+import com.capitalone.dashboard.repository.ArtifactItemBulkRepository;
+import com.capitalone.dashboard.repository.ArtifactItemRepository;
+import com.capitalone.dashboard.repository.ArtifactoryCollectorRepository;
+import com.capitalone.dashboard.repository.ArtifactoryRepoRepository;
+import com.capitalone.dashboard.repository.BinaryArtifactBulkRepository;
+import com.capitalone.dashboard.repository.BinaryArtifactRepository;
+import com.capitalone.dashboard.repository.BuildRepository;
+import com.capitalone.dashboard.repository.CollectorItemBulkRepository;
+import com.capitalone.dashboard.repository.CollectorItemRepository;
+import com.capitalone.dashboard.repository.GenericCollectorItemBulkRepository;
+import com.capitalone.dashboard.repository.GenericCollectorItemRepository;
+import com.capitalone.dashboard.repository.RelatedCollectorItemRepository;
+import com.capitalone.dashboard.repository.RepoCheckpointRepository;
+import com.capitalone.dashboard.util.ArtifactUtilTest;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArtifactoryCollectorTaskTest {
+    private static final String INSTANCE_URL = "http://localhost:8081/artifactory/";
+    private static final long LAST_EXECUTED = 1000L;
+
+    @Mock private TaskScheduler taskScheduler;
+    @Mock private ArtifactoryCollectorRepository artifactoryCollectorRepository;
+    @Mock private ArtifactoryRepoRepository artifactoryRepoRepository;
+    @Mock private ArtifactItemRepository artifactItemRepository;
+    @Mock private BinaryArtifactRepository binaryArtifactRepository;
+    @Mock private BinaryArtifactBulkRepository binaryArtifactBulkRepository;
+    @Mock private ArtifactItemBulkRepository artifactItemBulkRepository;
+    @Mock private ArtifactoryClient artifactoryClient;
+    @Mock private CollectorItemRepository collectorItemRepository;
+    @Mock private CollectorItemBulkRepository collectorItemBulkRepository;
+    @Mock private GenericCollectorItemRepository genericCollectorItemRepository;
+    @Mock private GenericCollectorItemBulkRepository genericCollectorItemBulkRepository;
+    @Mock private RelatedCollectorItemRepository relatedCollectorItemRepository;
+    @Mock private BuildRepository buildRepository;
+    @Mock private RepoCheckpointRepository repoCheckpointRepository;
+
+    private ArtifactorySettings settings;
+    private ArtifactoryCollector collector;
+    private ArtifactoryCollectorTask task;
+
+    @Before
+    public void setup() {
+        settings = new ArtifactorySettings();
+        settings.setMode(ArtifactoryCollectionMode.HYBRID_MODE);
+        ServerSetting serverSetting = new ServerSetting();
+        serverSetting.setUrl(INSTANCE_URL);
+        serverSetting.setRepoAndPatterns(Arrays.asList(repoAndPattern("release"), repoAndPattern("snapshot")));
+        settings.setServers(Collections.singletonList(serverSetting));
+        when(artifactoryClient.getRoutingTable()).thenReturn(new RepoRoutingTable(settings));
+        when(artifactoryClient.getPattern(anyString(), anyString())).thenReturn(Collections.singletonList(Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN)));
+
+        collector = ArtifactoryCollector.prototype(settings);
+        collector.setId(ObjectId.get());
+        collector.setLastExecuted(LAST_EXECUTED);
+        when(artifactItemRepository.findEnabledArtifactItems(collector.getId()))
+                .thenReturn(Arrays.asList(artifactItem("release"), artifactItem("snapshot")));
+
+        task = newTask();
+    }
+
+    @Test
+    public void testHybridModeMovesLastExecutedWhenEveryRepoCompletes() {
+        task.collect(collector);
+
+        assertThat(collector.getLastExecuted() > LAST_EXECUTED, is(true));
+        verify(artifactoryCollectorRepository, times(1)).save(collector);
+    }
+
+    @Test
+    public void testHybridModeKeepsLastExecutedWhenARepoFails() {
+        when(artifactoryClient.getLatestBinaryArtifacts(anyLong(), anyListOf(Pattern.class), anyString(), eq("release")))
+                .thenThrow(new ResourceAccessException("timeout"));
+
+        task.collect(collector);
+
+        // the other repo is still collected
+        verify(artifactoryClient).getLatestBinaryArtifacts(anyLong(), anyListOf(Pattern.class), anyString(), eq("snapshot"));
+        assertThat(collector.getLastExecuted(), is(LAST_EXECUTED));
+        verify(artifactoryCollectorRepository, never()).save(any(ArtifactoryCollector.class));
+    }
+
+    @Test
+    public void testArtifactBasedKeepsLastExecutedWhenARepoFails() {
+        settings.setMode(ArtifactoryCollectionMode.ARTIFACT_BASED);
+        when(artifactoryClient.getArtifactItems(anyString(), eq("release"), any(Pattern.class), anyLong(), any(RepoWatermark.class)))
+                .thenThrow(new ResourceAccessException("timeout"));
+
+        task.collect(collector);
+
+        // the repo after the failed one is still collected
+        verify(artifactoryClient).getArtifactItems(anyString(), eq("snapshot"), any(Pattern.class), anyLong(), any(RepoWatermark.class));
+        assertThat(collector.getLastExecuted(), is(LAST_EXECUTED));
+        verify(artifactoryCollectorRepository, never()).save(any(ArtifactoryCollector.class));
+    }
+
+    @Test
+    public void testArtifactBasedMovesLastExecutedWhenEveryRepoCompletes() {
+        settings.setMode(ArtifactoryCollectionMode.ARTIFACT_BASED);
+
+        task.collect(collector);
+
+        assertThat(collector.getLastExecuted() > LAST_EXECUTED, is(true));
+        verify(artifactoryCollectorRepository, times(1)).save(collector);
+    }
+
+    @Test
+    public void testRepoBasedKeepsLastUpdatedOfAFailedRepo() {
+        settings.setMode(ArtifactoryCollectionMode.REPO_BASED);
+        ArtifactoryRepo release = artifactoryRepo("release");
+        ArtifactoryRepo snapshot = artifactoryRepo("snapshot");
+        when(artifactoryRepoRepository.findEnabledArtifactoryRepos(collector.getId(), INSTANCE_URL)).thenReturn(Arrays.asList(release, snapshot));
+        when(artifactoryClient.getArtifacts(INSTANCE_URL, "release", LAST_EXECUTED)).thenThrow(new ResourceAccessException("timeout"));
+
+        task.collect(collector);
+
+        // the repo after the failed one is still collected, and only it moves its lastUpdated
+        verify(artifactoryClient).getArtifacts(INSTANCE_URL, "snapshot", LAST_EXECUTED);
+        verify(artifactoryRepoRepository).saveAll(Collections.singletonList(snapshot));
+        assertThat(release.getLastUpdated(), is(LAST_EXECUTED));
+        assertThat(snapshot.getLastUpdated() > LAST_EXECUTED, is(true));
+    }
+
+    @Test
+    public void testRepoBasedOnlyAddsArtifactsWithNewAttributes() {
+        settings.setMode(ArtifactoryCollectionMode.REPO_BASED);
+        ArtifactoryRepo release = artifactoryRepo("release");
+        when(artifactoryRepoRepository.findEnabledArtifactoryRepos(collector.getId(), INSTANCE_URL)).thenReturn(Collections.singletonList(release));
+        when(binaryArtifactBulkRepository.findAttributesByCollectorItemId(release.getId()))
+                .thenReturn(Collections.singletonList(binaryArtifact("test-dev-1.jar", "1", 5000L)));
+        when(artifactoryClient.getArtifacts(INSTANCE_URL, "release", LAST_EXECUTED)).thenReturn(Arrays.asList(
+                binaryArtifact("test-dev-1.jar", "1", 5000L), binaryArtifact("test-dev-2.jar", "2", 5200L),
+                binaryArtifact("test-dev-2.jar", "2", 5200L)));
+        List<String> upserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            for (Object binaryArtifact : (Collection<?>) invocation.getArguments()[0]) {
+                upserted.add(((BinaryArtifact) binaryArtifact).getCanonicalName());
+            }
+            return null;
+        }).when(binaryArtifactBulkRepository).upsertAll(anyCollectionOf(BinaryArtifact.class));
+
+        task.collect(collector);
+
+        // the stored version and the repeated row are skipped
+        assertThat(upserted, is(Collections.singletonList("test-dev-2.jar")));
+    }
+
+    @Test
+    public void testArtifactBasedLinksBuildsOfGenericItems() {
+        settings.setMode(ArtifactoryCollectionMode.ARTIFACT_BASED);
+        settings.setCapturePattern("deployed (\\S+):(\\S+)");
+        task = newTask();
+        GenericCollectorItem gci = new GenericCollectorItem();
+        gci.setId(ObjectId.get());
+        gci.setBuildId(ObjectId.get());
+        gci.setRawData("deployed com/mycompany:test-dev");
+        when(genericCollectorItemRepository.findAllByToolNameAndProcessTimeEquals(collector.getName(), 0L)).thenReturn(Collections.singletonList(gci));
+        CollectorItem artifactCollectorItem = new CollectorItem();
+        artifactCollectorItem.setId(ObjectId.get());
+        artifactCollectorItem.getOptions().put("artifactName", "test-dev");
+        artifactCollectorItem.getOptions().put("path", "com/mycompany/test-dev");
+        when(collectorItemBulkRepository.findByArtifactNamesAndPaths(Collections.singleton("test-dev"), Collections.singleton("com/mycompany/test-dev")))
+                .thenReturn(Collections.singletonList(artifactCollectorItem));
+        Build build = new Build();
+        build.setId(gci.getBuildId());
+        when(buildRepository.findAllById(Collections.singleton(gci.getBuildId()))).thenReturn(Collections.singletonList(build));
+
+        task.collect(collector);
+
+        verify(binaryArtifactBulkRepository).addBuilds(Collections.singletonMap(artifactCollectorItem.getId(), Collections.singletonList(build)));
+        verify(genericCollectorItemBulkRepository).updateProcessTime(eq(Collections.singletonList(gci.getId())), anyLong());
+    }
+
+    @Test
+    public void testHybridModeResumesFromTheWatermarkAndSkipsCommittedRows() {
+        settings.setOffSet(500L);
+        ArtifactItem release = artifactItem("release");
+        when(artifactItemRepository.findEnabledArtifactItems(collector.getId())).thenReturn(Collections.singletonList(release));
+        // the checkpoints saved by a run are the ones the next run loads
+        Map<String, RepoCheckpoint> checkpoints = new HashMap<>();
+        when(repoCheckpointRepository.save(any(RepoCheckpoint.class))).thenAnswer(invocation -> {
+            RepoCheckpoint checkpoint = (RepoCheckpoint) invocation.getArguments()[0];
+            checkpoints.put(checkpoint.getRepoName(), checkpoint);
+            return checkpoint;
+        });
+        when(repoCheckpointRepository.findByCollectorIdAndInstanceUrlAndRepoName(eq(collector.getId()), anyString(), anyString()))
+                .thenAnswer(invocation -> checkpoints.get((String) invocation.getArguments()[2]));
+        List<String> upserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            for (Object binaryArtifact : (Collection<?>) invocation.getArguments()[0]) {
+                upserted.add(((BinaryArtifact) binaryArtifact).getCanonicalName());
+            }
+            return null;
+        }).when(binaryArtifactBulkRepository).upsertAll(anyCollectionOf(BinaryArtifact.class));
+
+        when(artifactoryClient.getLatestBinaryArtifacts(anyLong(), anyListOf(Pattern.class), anyString(), eq("release")))
+                .thenAnswer(invocation -> latest(release, binaryArtifact("test-dev-1.jar", "1", 5000L)));
+        task.collect(collector);
+        assertThat(checkpoints.get("release").getWatermark(), is(5000L));
+        assertThat(upserted, is(Collections.singletonList("test-dev-1.jar")));
+
+        // the next query overlaps with the committed row, which is skipped
+        upserted.clear();
+        when(artifactoryClient.getLatestBinaryArtifacts(anyLong(), anyListOf(Pattern.class), anyString(), eq("release")))
+                .thenAnswer(invocation -> latest(release, binaryArtifact("test-dev-1.jar", "1", 5000L),
+                        binaryArtifact("test-dev-2.jar", "2", 5200L)));
+        task.collect(collector);
+        verify(artifactoryClient).getLastUpdated(5000L);
+        assertThat(checkpoints.get("release").getWatermark(), is(5200L));
+        assertThat(upserted, is(Collections.singletonList("test-dev-2.jar")));
+    }
+
+    @Test
+    public void testHybridModeResumesAnInterruptedPagedRunFromTheWatermark() {
+        settings.setOffSet(500L);
+        settings.setPageSize(2);
+        ArtifactItem release = artifactItem("release");
+        when(artifactItemRepository.findEnabledArtifactItems(collector.getId())).thenReturn(Collections.singletonList(release));
+        // a run that committed its first page and was interrupted before the next one
+        RepoCheckpoint checkpoint = new RepoCheckpoint(collector.getId(), INSTANCE_URL, "release", LAST_EXECUTED);
+        RepoWatermark committed = new RepoWatermark(checkpoint, 500L, 100);
+        committed.observe(binaryArtifact("test-dev-1.jar", "1", 5000L));
+        committed.commit();
+        checkpoint.setOffset(2);
+        when(repoCheckpointRepository.findByCollectorIdAndInstanceUrlAndRepoName(collector.getId(), INSTANCE_URL, "release")).thenReturn(checkpoint);
+        when(artifactoryClient.getLastUpdated(5000L)).thenReturn(4500L);
+        List<String> upserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            for (Object binaryArtifact : (Collection<?>) invocation.getArguments()[0]) {
+                upserted.add(((BinaryArtifact) binaryArtifact).getCanonicalName());
+            }
+            return null;
+        }).when(binaryArtifactBulkRepository).upsertAll(anyCollectionOf(BinaryArtifact.class));
+        // test-dev-3 sat in the first page and was modified again since, which moved it past the saved offset
+        when(artifactoryClient.getLatestBinaryArtifacts(eq(4500L), anyListOf(Pattern.class), anyString(), eq("release"), eq(0L), eq(2)))
+                .thenAnswer(invocation -> latest(release, binaryArtifact("test-dev-1.jar", "1", 5000L),
+                        binaryArtifact("test-dev-3.jar", "3", 5300L)));
+
+        task.collect(collector);
+
+        assertThat(upserted, is(Collections.singletonList("test-dev-3.jar")));
+        assertThat(checkpoint.getWatermark(), is(5300L));
+        assertThat(checkpoint.getOffset(), is(0L));
+        // the start of the interrupted run is not paged through again
+        verify(artifactoryClient, never()).getLatestBinaryArtifacts(eq(LAST_EXECUTED), anyListOf(Pattern.class), anyString(), eq("release"), anyLong(), eq(2));
+    }
+
+    @Test
+    public void testHybridModePrefetchesTheLatestArtifactsOfMatchedItems() {
+        ArtifactItem release = artifactItem("release");
+        when(artifactItemRepository.findEnabledArtifactItems(collector.getId())).thenReturn(Collections.singletonList(release));
+        when(artifactoryClient.getLatestBinaryArtifacts(anyLong(), anyListOf(Pattern.class), anyString(), eq("release")))
+                .thenAnswer(invocation -> latest(rowItem("release"), binaryArtifact("test-dev-1.jar", "1", 5000L),
+                        binaryArtifact("test-dev-2.jar", "2", 5200L)));
+
+        task.collect(collector);
+
+        // one aggregation for the stored item, no lookup per version
+        verify(binaryArtifactBulkRepository).findLatestByCollectorItemIds(Collections.singletonList(release.getId()));
+        verify(binaryArtifactRepository, never()).findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(any(ObjectId.class), anyString());
+    }
+
+    @Test
+    public void testHybridModeCarriesBuildInfosOverFromThePrefetchedLatestArtifact() {
+        ArtifactItem release = artifactItem("release");
+        when(artifactItemRepository.findEnabledArtifactItems(collector.getId())).thenReturn(Collections.singletonList(release));
+        BinaryArtifact stored = binaryArtifact("test-dev-1.jar", "1", 5000L);
+        stored.setCollectorItemId(release.getId());
+        Build build = new Build();
+        stored.setBuildInfos(Collections.singletonList(build));
+        when(binaryArtifactBulkRepository.findLatestWithBuildInfosByCollectorItemIds(Collections.singletonList(release.getId())))
+                .thenReturn(Collections.singletonList(stored));
+        when(artifactoryClient.getLatestBinaryArtifacts(anyLong(), anyListOf(Pattern.class), anyString(), eq("release")))
+                .thenAnswer(invocation -> latest(rowItem("release"), binaryArtifact("test-dev-2.jar", "2", 5200L)));
+        List<BinaryArtifact> upserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            for (Object binaryArtifact : (Collection<?>) invocation.getArguments()[0]) {
+                upserted.add((BinaryArtifact) binaryArtifact);
+            }
+            return null;
+        }).when(binaryArtifactBulkRepository).upsertAll(anyCollectionOf(BinaryArtifact.class));
+
+        task.collect(collector);
+
+        assertThat(upserted.size(), is(1));
+        assertThat(upserted.get(0).getBuildInfos(), is(Collections.singletonList(build)));
+        verify(binaryArtifactRepository, never()).findTopByCollectorItemIdAndBuildInfosIsNotEmptyOrderByTimestampDesc(any(ObjectId.class), any(Sort.class));
+    }
+
+    private ArtifactoryCollectorTask newTask() {
+        return new ArtifactoryCollectorTask(taskScheduler, artifactoryCollectorRepository, artifactoryRepoRepository,
+                artifactItemRepository, binaryArtifactRepository, binaryArtifactBulkRepository, artifactItemBulkRepository,
+                artifactoryClient, settings, collectorItemRepository, collectorItemBulkRepository, genericCollectorItemRepository,
+                genericCollectorItemBulkRepository, relatedCollectorItemRepository, buildRepository, repoCheckpointRepository);
+    }
+
+    private static RepoAndPattern repoAndPattern(String repo) {
+        RepoAndPattern repoAndPattern = new RepoAndPattern();
+        repoAndPattern.setRepo(repo);
+        repoAndPattern.setPatterns(Collections.singletonList(ArtifactUtilTest.ARTIFACT_PATTERN));
+        return repoAndPattern;
+    }
+
+    private static Map<ArtifactItem, List<BinaryArtifact>> latest(ArtifactItem artifactItem, BinaryArtifact... binaryArtifacts) {
+        Map<ArtifactItem, List<BinaryArtifact>> latest = new HashMap<>();
+        latest.put(artifactItem, new ArrayList<>(Arrays.asList(binaryArtifacts)));
+        return latest;
+    }
+
+    private static BinaryArtifact binaryArtifact(String name, String version, long modified) {
+        BinaryArtifact binaryArtifact = new BinaryArtifact();
+        binaryArtifact.setPath("com/mycompany/test-dev/" + version);
+        binaryArtifact.setCanonicalName(name);
+        binaryArtifact.setArtifactName("test-dev");
+        binaryArtifact.setArtifactVersion(version);
+        binaryArtifact.setActual_sha1("sha-" + version);
+        binaryArtifact.setModifiedTimeStamp(modified);
+        return binaryArtifact;
+    }
+
+    private ArtifactoryRepo artifactoryRepo(String repoName) {
+        ArtifactoryRepo repo = new ArtifactoryRepo();
+        repo.setId(ObjectId.get());
+        repo.setCollectorId(collector.getId());
+        repo.setInstanceUrl(INSTANCE_URL);
+        repo.setRepoName(repoName);
+        repo.setLastUpdated(LAST_EXECUTED);
+        return repo;
+    }
+
+    // the artifact item of an AQL row, equal to the stored one but without its id
+    private static ArtifactItem rowItem(String repo) {
+        return new ArtifactItem(repo, "test-dev", "com/mycompany/test-dev", "http://localhost:8081/artifactory");
+    }
+
+    private static ArtifactItem artifactItem(String repo) {
+        ArtifactItem artifactItem = new ArtifactItem(repo, "test-dev", "com/mycompany/test-dev", "http://localhost:8081/artifactory");
+        artifactItem.setId(ObjectId.get());
+        return artifactItem;
+    }
+}
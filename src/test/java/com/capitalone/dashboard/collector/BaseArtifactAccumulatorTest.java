@@ -0,0 +1,75 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.ArtifactItem;
+import com.capitalone.dashboard.model.BaseArtifact;
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.Build;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class BaseArtifactAccumulatorTest {
+
+    @Test
+    public void testItemsMatchIgnoringCase() {
+        BaseArtifactAccumulator accumulator = new BaseArtifactAccumulator();
+        ArtifactItem first = artifactItem("test-dev", "release", "placeholder/test-dev");
+        accumulator.add(first, Collections.singletonList(binaryArtifact("test-dev", "1")));
+        accumulator.add(artifactItem("Test-Dev", "RELEASE", "placeholder/Test-Dev"), Collections.singletonList(binaryArtifact("test-dev", "2")));
+        accumulator.add(artifactItem("other", "release", "placeholder/other"), Collections.singletonList(binaryArtifact("other", "1")));
+
+        List<BaseArtifact> baseArtifacts = accumulator.getBaseArtifacts();
+        assertThat(baseArtifacts.size(), is(2));
+        assertThat(baseArtifacts.get(0).getArtifactItem(), sameInstance(first));
+        assertThat(baseArtifacts.get(0).getBinaryArtifacts().size(), is(2));
+        assertThat(baseArtifacts.get(1).getArtifactItem().getArtifactName(), is("other"));
+    }
+
+    @Test
+    public void testSameVersionOnlyReplacedWithBuildInfos() {
+        BaseArtifactAccumulator accumulator = new BaseArtifactAccumulator();
+        ArtifactItem item = artifactItem("test-dev", "release", "placeholder/test-dev");
+        BinaryArtifact v1 = binaryArtifact("test-dev", "1");
+        BinaryArtifact v2 = binaryArtifact("test-dev", "2");
+        accumulator.add(item, Arrays.asList(v1, v2));
+
+        accumulator.add(item, Collections.singletonList(binaryArtifact("test-dev", "1")));
+        List<BinaryArtifact> binaryArtifacts = accumulator.getBaseArtifacts().get(0).getBinaryArtifacts();
+        assertThat(binaryArtifacts.get(0), sameInstance(v1));
+
+        BinaryArtifact built = binaryArtifact("test-dev", "1");
+        built.setBuildInfos(Collections.singletonList(new Build()));
+        accumulator.add(item, Collections.singletonList(built));
+        assertThat(binaryArtifacts.size(), is(2));
+        assertThat(binaryArtifacts.get(0), sameInstance(built));
+        assertThat(binaryArtifacts.get(1), sameInstance(v2));
+    }
+
+    @Test
+    public void testNoBinaryArtifactsAddsNothing() {
+        BaseArtifactAccumulator accumulator = new BaseArtifactAccumulator();
+        accumulator.add(artifactItem("test-dev", "release", "placeholder/test-dev"), Collections.emptyList());
+        assertThat(accumulator.getBaseArtifacts().isEmpty(), is(true));
+    }
+
+    private static ArtifactItem artifactItem(String name, String repo, String path) {
+        ArtifactItem artifactItem = new ArtifactItem();
+        artifactItem.setArtifactName(name);
+        artifactItem.setRepoName(repo);
+        artifactItem.setPath(path);
+        return artifactItem;
+    }
+
+    private static BinaryArtifact binaryArtifact(String name, String version) {
+        BinaryArtifact binaryArtifact = new BinaryArtifact();
+        binaryArtifact.setArtifactName(name);
+        binaryArtifact.setArtifactVersion(version);
+        return binaryArtifact;
+    }
+}
@@ -0,0 +1,121 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.Build;
+import com.capitalone.dashboard.repository.BinaryArtifactBulkRepository;
+import com.capitalone.dashboard.repository.BinaryArtifactRepository;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BinaryArtifactWriteBatchTest {
+    @Mock private BinaryArtifactRepository binaryArtifactRepository;
+    @Mock private BinaryArtifactBulkRepository bulkRepository;
+
+    @Test
+    public void testAddedArtifactIsLatest() {
+        BinaryArtifactWriteBatch batch = new BinaryArtifactWriteBatch(binaryArtifactRepository, bulkRepository, 1);
+        ObjectId collectorItemId = ObjectId.get();
+        BinaryArtifact ba = binaryArtifact(collectorItemId, "1.0");
+        batch.add(ba);
+
+        verify(bulkRepository, times(1)).upsertAll(anyCollectionOf(BinaryArtifact.class));
+        // still the latest after it has been written
+        assertThat(batch.findLatest(collectorItemId, "1.0"), sameInstance(ba));
+        verify(binaryArtifactRepository, never()).findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(any(ObjectId.class), anyString());
+    }
+
+    @Test
+    public void testPrefetchAnswersLookups() {
+        BinaryArtifactWriteBatch batch = new BinaryArtifactWriteBatch(binaryArtifactRepository, bulkRepository, 10);
+        ObjectId collectorItemId = ObjectId.get();
+        BinaryArtifact stored = binaryArtifact(collectorItemId, "1.0");
+        when(bulkRepository.findLatestByCollectorItemIds(Collections.singletonList(collectorItemId)))
+                .thenReturn(Collections.singletonList(stored));
+
+        batch.prefetch(Arrays.asList(collectorItemId, collectorItemId));
+
+        assertThat(batch.findLatest(collectorItemId, "1.0"), sameInstance(stored));
+        assertThat(batch.findLatest(collectorItemId, "2.0"), nullValue());
+        verify(binaryArtifactRepository, never()).findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(any(ObjectId.class), anyString());
+    }
+
+    @Test
+    public void testLookupWithoutPrefetchQueriesOncePerVersion() {
+        BinaryArtifactWriteBatch batch = new BinaryArtifactWriteBatch(binaryArtifactRepository, bulkRepository, 10);
+        ObjectId collectorItemId = ObjectId.get();
+
+        assertThat(batch.findLatest(collectorItemId, "1.0"), nullValue());
+        assertThat(batch.findLatest(collectorItemId, "1.0"), nullValue());
+
+        verify(binaryArtifactRepository, times(1)).findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(collectorItemId, "1.0");
+    }
+
+    @Test
+    public void testLatestBuildInfosLoadedOnceAndRefreshedByAdds() {
+        BinaryArtifactWriteBatch batch = new BinaryArtifactWriteBatch(binaryArtifactRepository, bulkRepository, 10);
+        ObjectId collectorItemId = ObjectId.get();
+        BinaryArtifact stored = binaryArtifact(collectorItemId, "1.0");
+        stored.setBuildInfos(Collections.singletonList(new Build()));
+        when(bulkRepository.findLatestWithBuildInfosByCollectorItemIds(Collections.singletonList(collectorItemId)))
+                .thenReturn(Collections.singletonList(stored));
+        batch.prefetch(Collections.singletonList(collectorItemId));
+
+        BinaryArtifact second = binaryArtifact(collectorItemId, "2.0");
+        batch.attachLatestBuildInfos(collectorItemId, second);
+        assertThat(second.getBuildInfos(), sameInstance(stored.getBuildInfos()));
+
+        BinaryArtifact rebuilt = binaryArtifact(collectorItemId, "3.0");
+        rebuilt.setBuildInfos(Collections.singletonList(new Build()));
+        batch.add(rebuilt);
+        BinaryArtifact fourth = binaryArtifact(collectorItemId, "4.0");
+        batch.attachLatestBuildInfos(collectorItemId, fourth);
+        assertThat(fourth.getBuildInfos(), sameInstance(rebuilt.getBuildInfos()));
+
+        verify(binaryArtifactRepository, never()).findTopByCollectorItemIdAndBuildInfosIsNotEmptyOrderByTimestampDesc(any(ObjectId.class), any(Sort.class));
+    }
+
+    @Test
+    public void testFlushesWhenBatchIsFull() {
+        BinaryArtifactWriteBatch batch = new BinaryArtifactWriteBatch(binaryArtifactRepository, bulkRepository, 2);
+        ObjectId collectorItemId = ObjectId.get();
+        batch.add(binaryArtifact(collectorItemId, "1.0"));
+        batch.add(binaryArtifact(collectorItemId, "2.0"));
+        batch.add(binaryArtifact(collectorItemId, "3.0"));
+
+        verify(bulkRepository, times(1)).upsertAll(anyCollectionOf(BinaryArtifact.class));
+        assertThat(batch.findLatest(collectorItemId, "3.0").getArtifactVersion(), is("3.0"));
+    }
+
+    @Test
+    public void testEmptyFlushSkipsWrite() {
+        new BinaryArtifactWriteBatch(binaryArtifactRepository, bulkRepository, 2).flush();
+        verify(bulkRepository, never()).upsertAll(anyCollectionOf(BinaryArtifact.class));
+    }
+
+    private static BinaryArtifact binaryArtifact(ObjectId collectorItemId, String version) {
+        BinaryArtifact ba = new BinaryArtifact();
+        ba.setCollectorItemId(collectorItemId);
+        ba.setArtifactVersion(version);
+        return ba;
+    }
+}
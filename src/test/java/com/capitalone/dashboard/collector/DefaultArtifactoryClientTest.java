@@ -9,36 +9,52 @@ import com.capitalone.dashboard.model.BinaryArtifact;
 import com.capitalone.dashboard.model.Build;
 import com.capitalone.dashboard.model.RepoAndPattern;
 import com.capitalone.dashboard.model.ServerSetting;
+import com.capitalone.dashboard.repository.BinaryArtifactBulkRepository;
 import com.capitalone.dashboard.repository.BinaryArtifactRepository;
 import com.capitalone.dashboard.util.ArtifactUtilTest;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.io.IOUtils;
 import org.bson.types.ObjectId;
-import org.json.simple.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestOperations;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -48,8 +64,11 @@ public class DefaultArtifactoryClientTest {
     @Mock private RestOperations rest;
     @Mock private ArtifactorySettings settings;
     @Mock private BinaryArtifactRepository binaryArtifactRepository;
+    @Mock private BinaryArtifactBulkRepository binaryArtifactBulkRepository;
+    @Captor private ArgumentCaptor<HttpEntity<?>> entityCaptor;
     
     private final DateFormat FULL_DATE = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
     
     private DefaultArtifactoryClient defaultArtifactoryClient;
     
@@ -66,7 +85,7 @@ public class DefaultArtifactoryClientTest {
         settings.setServers(Collections.singletonList(serverSetting));
         settings.setTimeInterval(3);
         settings.setTimeUnit("DAYS");
-        defaultArtifactoryClient = new DefaultArtifactoryClient(settings, new RestClient(restOperationsSupplier),binaryArtifactRepository);
+        defaultArtifactoryClient = new DefaultArtifactoryClient(settings, new RestClient(restOperationsSupplier),binaryArtifactRepository, binaryArtifactBulkRepository);
     }
     
     @Test
@@ -86,6 +105,25 @@ public class DefaultArtifactoryClientTest {
         assertThat(repos.get(1).getRepoUrl(), is("http://localhost:8081/artifactory/xldeploy"));
     }
     
+	@Test
+	public void testCreateHeadersMatchesInstanceUrlExactly() {
+		ServerSetting primary = settings.getServers().get(0);
+		primary.setUsername("user");
+		primary.setApiKey("key");
+		ServerSetting secondary = new ServerSetting();
+		secondary.setUrl("http://localhost:8081/artifactory-dr/");
+		secondary.setUsername("dr");
+		secondary.setApiKey("secret");
+		secondary.setRepoAndPatterns(Collections.emptyList());
+		settings.setServers(Arrays.asList(primary, secondary));
+		DefaultArtifactoryClient client = new DefaultArtifactoryClient(settings, new RestClient(restOperationsSupplier),binaryArtifactRepository, binaryArtifactBulkRepository);
+
+		assertThat(client.createHeaders("http://localhost:8081/artifactory/").getFirst(HttpHeaders.AUTHORIZATION), is("Basic dXNlcjprZXk="));
+		assertThat(client.createHeaders("http://localhost:8081/artifactory-dr").getFirst(HttpHeaders.AUTHORIZATION), is("Basic ZHI6c2VjcmV0"));
+		assertNull(client.createHeaders("http://localhost:8081/").getFirst(HttpHeaders.AUTHORIZATION));
+		assertThat(client.createHeaders("http://localhost:8081/artifactory"), sameInstance(client.createHeaders("http://localhost:8081/artifactory/")));
+	}
+
     @Test
     public void testGetEmptyArtifacts() throws Exception {
     	String emptyArtifactsJson = getJson("emptyArtifacts.json");
@@ -111,10 +149,10 @@ public class DefaultArtifactoryClientTest {
 		long currTime = lastUpdated + TimeUnit.HOURS.toMillis(1);
 
 		// with the addition of artifactory pagination, update the times to limit number of calls made in getArtifactItems()
-		JSONObject updatedArtifactItems = updateJsonArtifactTimes("artifactItems.json", currTime);
+		ObjectNode updatedArtifactItems = updateJsonArtifactTimes("artifactItems.json", currTime);
 		// get latest timestamp
-		List<Map<String,String>> res = ((List) updatedArtifactItems.get("results"));
-		long lastTime = (FULL_DATE.parse((res.get(res.size()-1)).get("created")).getTime());
+		JsonNode res = updatedArtifactItems.get("results");
+		long lastTime = (FULL_DATE.parse(res.get(res.size()-1).get("created").asText()).getTime());
 		// mock query json in response
 		String artifactItemsJson1 = queryJsonByTime(updatedArtifactItems,
 				lastUpdated,
@@ -132,9 +170,9 @@ public class DefaultArtifactoryClientTest {
 				.thenReturn(new ResponseEntity<>(artifactItemsJson2, HttpStatus.OK))
 				.thenReturn(new ResponseEntity<>(artifactItemsJson3, HttpStatus.OK));
 
-		when(binaryArtifactRepository.findByArtifactNameAndArtifactVersion("test-dev","1")).thenReturn(null);
-		when(binaryArtifactRepository.findByArtifactNameAndArtifactVersion("test-dev","1")).thenReturn(binaryArtifactIterable(true));
-		List<BaseArtifact> baseArtifacts = defaultArtifactoryClient.getArtifactItems(instanceUrl, repoName, ArtifactUtilTest.ARTIFACT_PATTERN,lastUpdated);
+		List<BinaryArtifact> existing = existingBinaryArtifacts("test-dev", "1");
+		when(binaryArtifactBulkRepository.findByArtifactNamesAndVersions(Collections.singleton("test-dev"), Collections.singleton("1"))).thenReturn(existing);
+		List<BaseArtifact> baseArtifacts = defaultArtifactoryClient.getArtifactItems(instanceUrl, repoName, Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN),lastUpdated);
 		assertThat(baseArtifacts.size(), is(1));
 		assertThat(baseArtifacts.get(0).getArtifactItem().getArtifactName(),is("test-dev"));
 		assertThat(baseArtifacts.get(0).getArtifactItem().getInstanceUrl(),is("http://localhost:8081/artifactory/"));
@@ -148,11 +186,80 @@ public class DefaultArtifactoryClientTest {
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getArtifactName(),is("test-dev"));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getType(),is("file"));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getModifiedBy(),is("robot"));
-		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getModifiedTimeStamp(),is(new Long("1539268736471")));
+		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getModifiedTimeStamp(),is(1539268736471L));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getCreatedBy(),is("robot"));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getCreatedTimeStamp(),is(lastTime));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getArtifactVersion(),is("1"));
+		// the stored artifacts of the version hand over their builds and collector item and are deleted together, once per page
+		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getBuildInfos(),is(existing.get(0).getBuildInfos()));
+		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getCollectorItemId(),is(existing.get(1).getCollectorItemId()));
+		verify(binaryArtifactBulkRepository, times(3)).deleteByIds(Arrays.asList(existing.get(0).getId(), existing.get(1).getId()));
+
+	}
+
+	@Test
+	public void testGetArtifactItemsConcurrentWindows() throws Exception {
+		String instanceUrl = "http://localhost:8081/artifactory/";
+		String aqlUrl = "http://localhost:8081/artifactory/api/search/aql";
+		String repoName = "release";
+		settings.setWindowParallelism(3);
+
+		long lastUpdated = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2) - TimeUnit.HOURS.toMillis(1);
+		long currTime = lastUpdated + TimeUnit.HOURS.toMillis(1);
+		ObjectNode updatedArtifactItems = updateJsonArtifactTimes("artifactItems.json", currTime);
+		Pattern window = Pattern.compile("\"\\$gt\":\"([^\"]+)\"}.*\"\\$lte\":\"([^\"]+)\"}");
+
+		// answer each window with the artifacts created in it, whichever thread asks first;
+		// synchronized as the test's date format is shared
+		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
+				.thenAnswer(invocation -> {
+					synchronized (this) {
+						Matcher m = window.matcher((String) ((HttpEntity<?>) invocation.getArguments()[2]).getBody());
+						assertThat(m.find(), is(true));
+						return new ResponseEntity<>(queryJsonByTime(updatedArtifactItems,
+								FULL_DATE.parse(m.group(1)).getTime(), FULL_DATE.parse(m.group(2)).getTime()), HttpStatus.OK);
+					}
+				});
+
+		when(binaryArtifactBulkRepository.findByArtifactNamesAndVersions(Collections.singleton("test-dev"), Collections.singleton("1")))
+				.thenReturn(existingBinaryArtifacts("test-dev", "1"));
+		List<BaseArtifact> baseArtifacts = defaultArtifactoryClient.getArtifactItems(instanceUrl, repoName, Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN),lastUpdated);
+		verify(rest, times(3)).exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class));
+		assertThat(baseArtifacts.size(), is(1));
+		assertThat(baseArtifacts.get(0).getArtifactItem().getArtifactName(),is("test-dev"));
+		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getArtifactVersion(),is("1"));
+	}
+
+	@Test
+	public void testGetArtifactItemsConcurrentWindowFailureIsRaised() throws Exception {
+		String instanceUrl = "http://localhost:8081/artifactory/";
+		String aqlUrl = "http://localhost:8081/artifactory/api/search/aql";
+		settings.setWindowParallelism(3);
+
+		long lastUpdated = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2) - TimeUnit.HOURS.toMillis(1);
+		ObjectNode updatedArtifactItems = updateJsonArtifactTimes("artifactItems.json", lastUpdated + TimeUnit.HOURS.toMillis(1));
+		Pattern window = Pattern.compile("\"\\$gt\":\"([^\"]+)\"}.*\"\\$lte\":\"([^\"]+)\"}");
+		long failingStart = lastUpdated + TimeUnit.DAYS.toMillis(1);
 
+		// the middle of the three windows fails, the others answer normally
+		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
+				.thenAnswer(invocation -> {
+					synchronized (this) {
+						Matcher m = window.matcher((String) ((HttpEntity<?>) invocation.getArguments()[2]).getBody());
+						assertThat(m.find(), is(true));
+						long start = FULL_DATE.parse(m.group(1)).getTime();
+						if (start == failingStart) throw new ResourceAccessException("window failed");
+						return new ResponseEntity<>(queryJsonByTime(updatedArtifactItems, start, FULL_DATE.parse(m.group(2)).getTime()), HttpStatus.OK);
+					}
+				});
+
+		try {
+			defaultArtifactoryClient.getArtifactItems(instanceUrl, "release", Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN), lastUpdated);
+			fail("the failed window should be raised");
+		} catch (ResourceAccessException e) {
+			// raised like the sequential path, so the collector marks the repo failed and keeps its watermark
+			assertThat(e.getMessage(), is("window failed"));
+		}
 	}
 
 	@Test
@@ -165,10 +272,10 @@ public class DefaultArtifactoryClientTest {
 		long currTime = lastUpdated + TimeUnit.HOURS.toMillis(1);
 
 		// with the addition of artifactory pagination, update the times to limit number of calls made in getArtifactItems()
-		JSONObject updatedArtifactItems = updateJsonArtifactTimes("artifactItems.json", currTime);
+		ObjectNode updatedArtifactItems = updateJsonArtifactTimes("artifactItems.json", currTime);
 		// get latest timestamp
-		List<Map<String,String>> res = ((List) updatedArtifactItems.get("results"));
-		long lastTime = (FULL_DATE.parse((res.get(res.size()-1)).get("created")).getTime());
+		JsonNode res = updatedArtifactItems.get("results");
+		long lastTime = (FULL_DATE.parse(res.get(res.size()-1).get("created").asText()).getTime());
 		// mock query json in response
 		String artifactItemsJson1 = queryJsonByTime(updatedArtifactItems,
 				lastUpdated,
@@ -185,10 +292,10 @@ public class DefaultArtifactoryClientTest {
 				.thenReturn(new ResponseEntity<>(artifactItemsJson1, HttpStatus.OK))
 				.thenReturn(new ResponseEntity<>(artifactItemsJson2, HttpStatus.OK))
 				.thenReturn(new ResponseEntity<>(artifactItemsJson3, HttpStatus.OK));
-		when(binaryArtifactRepository.findByArtifactNameAndArtifactVersion("test-dev","1"))
-				.thenReturn(binaryArtifactIterable(true));
+		when(binaryArtifactBulkRepository.findByArtifactNamesAndVersions(Collections.singleton("test-dev"), Collections.singleton("1")))
+				.thenReturn(existingBinaryArtifacts("test-dev", "1"));
 
-		List<BaseArtifact> baseArtifacts = defaultArtifactoryClient.getArtifactItems(instanceUrl, repoName, ArtifactUtilTest.ARTIFACT_PATTERN,lastUpdated);
+		List<BaseArtifact> baseArtifacts = defaultArtifactoryClient.getArtifactItems(instanceUrl, repoName, Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN),lastUpdated);
 		assertThat(baseArtifacts.size(), is(1));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().size(), is(1));
 		assertThat(baseArtifacts.get(0).getArtifactItem().getArtifactName(),is("test-dev"));
@@ -203,7 +310,7 @@ public class DefaultArtifactoryClientTest {
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getArtifactName(),is("test-dev"));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getType(),is("file"));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getModifiedBy(),is("robot"));
-		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getModifiedTimeStamp(),is(new Long("1539268736471")));
+		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getModifiedTimeStamp(),is(1539268736471L));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getCreatedBy(),is("robot"));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getCreatedTimeStamp(),is(lastTime));
 		assertThat(baseArtifacts.get(0).getBinaryArtifacts().get(0).getArtifactVersion(),is("1"));
@@ -223,16 +330,17 @@ public class DefaultArtifactoryClientTest {
 		ObjectId id = ObjectId.get();
 		// artifact item
 		ArtifactItem ai = createArtifactItem(id, "test-dev", instanceUrl, repoName);
-		List<String> patterns = new ArrayList<>();
-		patterns.add(ArtifactUtilTest.ARTIFACT_PATTERN);
+		List<Pattern> patterns = new ArrayList<>();
+		patterns.add(Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN));
 		List<String> subRepos = settings.getServers().get(0).getRepoAndPatterns().get(0).getSubRepos();
 
 		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
 				.thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
 
-		when(binaryArtifactRepository.findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(id, "1")).thenReturn(null);
+		when(binaryArtifactBulkRepository.findLatestByCollectorItemIds(Collections.singletonList(id))).thenReturn(Collections.emptyList());
 		// binary artifact found with matching collector item id
-		when(binaryArtifactRepository.findTopByCollectorItemIdAndBuildInfosIsNotEmptyOrderByTimestampDesc(id, Sort.by(Sort.Direction.DESC, "timestamp"))).thenReturn(binaryArtifactLatestCollectorItemId(id, true));
+		when(binaryArtifactBulkRepository.findLatestWithBuildInfosByCollectorItemIds(Collections.singletonList(id)))
+				.thenReturn(Collections.singletonList(binaryArtifactLatestCollectorItemId(id, true)));
 		List<BinaryArtifact> binaryArtifacts = defaultArtifactoryClient.getArtifacts(ai, patterns);
 		assertThat(binaryArtifacts.size(), is(0));
 	}
@@ -247,15 +355,15 @@ public class DefaultArtifactoryClientTest {
 		ObjectId id = ObjectId.get();
 		// artifact item
 		ArtifactItem ai = createArtifactItem(id, "test-dev", instanceUrl, repoName);
-		List<String> patterns = new ArrayList<>();
-		patterns.add(ArtifactUtilTest.ARTIFACT_PATTERN);
+		List<Pattern> patterns = new ArrayList<>();
+		patterns.add(Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN));
 		List<String> subRepos = settings.getServers().get(0).getRepoAndPatterns().get(0).getSubRepos();
 
 		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
 				.thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
 
 		BinaryArtifact matchedBA = createMatchedExistingBinaryArtifact(id, "test-dev", "1", "placeholder/test-dev/1", repoName, true);
-		when(binaryArtifactRepository.findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(id, "1")).thenReturn(matchedBA);
+		when(binaryArtifactBulkRepository.findLatestByCollectorItemIds(Collections.singletonList(id))).thenReturn(Collections.singletonList(matchedBA));
 		List<BinaryArtifact> binaryArtifacts = defaultArtifactoryClient.getArtifacts(ai, patterns);
 		assertThat(binaryArtifacts.size(), is(1));
 		assertThat(binaryArtifacts.get(0).getArtifactName(),is("test-dev"));
@@ -273,6 +381,110 @@ public class DefaultArtifactoryClientTest {
 		assertThat(binaryArtifacts.get(0).getVirtualRepos(), is(Arrays.asList("docker-managed")));
 	}
 
+	@Test
+	public void testGetArtifactsPaged() throws Exception {
+		String instanceUrl = "http://localhost:8081/artifactory/";
+		String aqlUrl = "http://localhost:8081/artifactory/api/search/aql";
+		String repoName = "release";
+		ObjectId id = ObjectId.get();
+		ArtifactItem ai = createArtifactItem(id, "test-dev", instanceUrl, repoName);
+		List<Pattern> patterns = new ArrayList<>();
+		patterns.add(Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN));
+		settings.setPageSize(1);
+
+		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
+				.thenReturn(new ResponseEntity<>(getJson("binaryArtifacts.json"), HttpStatus.OK))
+				.thenReturn(new ResponseEntity<>(getJson("emptyArtifacts.json"), HttpStatus.OK));
+
+		BinaryArtifact matchedBA = createMatchedExistingBinaryArtifact(id, "test-dev", "1", "placeholder/test-dev/1", repoName, true);
+		when(binaryArtifactBulkRepository.findLatestByCollectorItemIds(Collections.singletonList(id))).thenReturn(Collections.singletonList(matchedBA));
+		List<BinaryArtifact> binaryArtifacts = defaultArtifactoryClient.getArtifacts(ai, patterns);
+		assertThat(binaryArtifacts.size(), is(1));
+
+		verify(rest, times(2)).exchange(eq(aqlUrl), eq(HttpMethod.POST), entityCaptor.capture(), eq(String.class));
+		assertThat(((String) entityCaptor.getAllValues().get(0).getBody()).endsWith(".offset(0).limit(1)"), is(true));
+		assertThat(((String) entityCaptor.getAllValues().get(1).getBody()).endsWith(".offset(1).limit(1)"), is(true));
+	}
+
+	@Test
+	public void testGetArtifactsForVersionMatchesVersionInAql() throws Exception {
+		String instanceUrl = "http://localhost:8081/artifactory/";
+		String aqlUrl = "http://localhost:8081/artifactory/api/search/aql";
+		String repoName = "release";
+		ObjectId id = ObjectId.get();
+		ArtifactItem ai = createArtifactItem(id, "test-dev", instanceUrl, repoName);
+		List<Pattern> patterns = Collections.singletonList(Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN));
+
+		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
+				.thenReturn(new ResponseEntity<>(getJson("binaryArtifacts.json"), HttpStatus.OK));
+		BinaryArtifact matchedBA = createMatchedExistingBinaryArtifact(id, "test-dev", "1", "placeholder/test-dev/1", repoName, true);
+		when(binaryArtifactRepository.findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(id, "1")).thenReturn(matchedBA);
+
+		List<BinaryArtifact> binaryArtifacts = defaultArtifactoryClient.getArtifactsForVersion(ai, "1", 0L, patterns);
+		assertThat(binaryArtifacts.size(), is(1));
+		assertThat(binaryArtifacts.get(0).getArtifactVersion(), is("1"));
+
+		verify(rest).exchange(eq(aqlUrl), eq(HttpMethod.POST), entityCaptor.capture(), eq(String.class));
+		assertThat(((String) entityCaptor.getValue().getBody())
+				.contains("\"$or\":[{\"path\":{\"$match\":\"*1*\"}},{\"name\":{\"$match\":\"*1*\"}}]"), is(true));
+	}
+
+	@Test
+	public void testGetArtifactsForVersionMatchesVersionIgnoringCase() throws Exception {
+		String instanceUrl = "http://localhost:8081/artifactory/";
+		String aqlUrl = "http://localhost:8081/artifactory/api/search/aql";
+		String repoName = "release";
+		ObjectId id = ObjectId.get();
+		ArtifactItem ai = createArtifactItem(id, "test-dev", instanceUrl, repoName);
+		List<Pattern> patterns = Collections.singletonList(Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN));
+		ObjectNode response = (ObjectNode) MAPPER.readTree(getJson("binaryArtifacts.json"));
+		((ObjectNode) response.get("results").get(0)).put("path", "placeholder/test-dev/1.0-RC1");
+
+		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
+				.thenReturn(new ResponseEntity<>(response.toString(), HttpStatus.OK));
+		BinaryArtifact matchedBA = createMatchedExistingBinaryArtifact(id, "test-dev", "1.0-RC1", "placeholder/test-dev/1.0-RC1", repoName, true);
+		when(binaryArtifactRepository.findTopByCollectorItemIdAndArtifactVersionOrderByTimestampDesc(id, "1.0-RC1")).thenReturn(matchedBA);
+
+		List<BinaryArtifact> binaryArtifacts = defaultArtifactoryClient.getArtifactsForVersion(ai, "1.0-rc1", 0L, patterns);
+		assertThat(binaryArtifacts.size(), is(1));
+		assertThat(binaryArtifacts.get(0).getArtifactVersion(), is("1.0-RC1"));
+
+		// the letters of the version match either case in AQL
+		verify(rest).exchange(eq(aqlUrl), eq(HttpMethod.POST), entityCaptor.capture(), eq(String.class));
+		assertThat(((String) entityCaptor.getValue().getBody())
+				.contains("\"$or\":[{\"path\":{\"$match\":\"*1.0-??1*\"}},{\"name\":{\"$match\":\"*1.0-??1*\"}}]"), is(true));
+	}
+
+	@Test
+	public void testGetLatestBinaryArtifactsPage() throws Exception {
+		String instanceUrl = "http://localhost:8081/artifactory/";
+		String aqlUrl = "http://localhost:8081/artifactory/api/search/aql";
+		String repoName = "release";
+
+		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
+				.thenReturn(new ResponseEntity<>(getJson("binaryArtifacts.json"), HttpStatus.OK));
+
+		Map<ArtifactItem, List<BinaryArtifact>> page = defaultArtifactoryClient.getLatestBinaryArtifacts(0L,
+				Collections.singletonList(Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN)), instanceUrl, repoName, 500, 250);
+		assertThat(page.size(), is(1));
+		assertThat(page.values().iterator().next().get(0).getArtifactVersion(), is("1"));
+
+		verify(rest).exchange(eq(aqlUrl), eq(HttpMethod.POST), entityCaptor.capture(), eq(String.class));
+		assertThat(((String) entityCaptor.getValue().getBody()).endsWith(".offset(500).limit(250)"), is(true));
+	}
+
+	@Test
+	public void testGetLatestBinaryArtifactsPageNoResponse() throws Exception {
+		String instanceUrl = "http://localhost:8081/artifactory/";
+		String aqlUrl = "http://localhost:8081/artifactory/api/search/aql";
+
+		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
+				.thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+
+		assertNull(defaultArtifactoryClient.getLatestBinaryArtifacts(0L,
+				Collections.singletonList(Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN)), instanceUrl, "release", 0, 250));
+	}
+
 	// test with having to iterate through multiple patterns with no patterns matched
 	@Test
 	public void testGetArtifactsIterateMultiplePatternsNoMatch() throws Exception {
@@ -283,9 +495,9 @@ public class DefaultArtifactoryClientTest {
 		ObjectId id = ObjectId.get();
 		// artifact item
 		ArtifactItem ai = createArtifactItem(id, "test-dev", instanceUrl, repoName);
-		List<String> patterns = new ArrayList<>();
-		patterns.add(ArtifactUtilTest.MISC_PATTERN1);
-		patterns.add(ArtifactUtilTest.MISC_PATTERN2);
+		List<Pattern> patterns = new ArrayList<>();
+		patterns.add(Pattern.compile(ArtifactUtilTest.MISC_PATTERN1));
+		patterns.add(Pattern.compile(ArtifactUtilTest.MISC_PATTERN2));
 
 		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
 				.thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
@@ -306,8 +518,8 @@ public class DefaultArtifactoryClientTest {
 		ObjectId id = ObjectId.get();
 		// artifact item
 		ArtifactItem ai = createArtifactItem(id, "test-dev", instanceUrl, repoName);
-		List<String> patterns = new ArrayList<>();
-		patterns.add(ArtifactUtilTest.ARTIFACT_PATTERN);
+		List<Pattern> patterns = new ArrayList<>();
+		patterns.add(Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN));
 
 		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
 				.thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
@@ -326,8 +538,8 @@ public class DefaultArtifactoryClientTest {
 		ObjectId id = ObjectId.get();
 		// artifact item
 		ArtifactItem ai = createArtifactItem(id, "test-dev", instanceUrl, repoName);
-		List<String> patterns = new ArrayList<>();
-		patterns.add(ArtifactUtilTest.ARTIFACT_PATTERN);
+		List<Pattern> patterns = new ArrayList<>();
+		patterns.add(Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN));
 
 		// invalid path returns no results
 		when(rest.exchange(eq(aqlUrl), eq(HttpMethod.POST), Matchers.any(HttpEntity.class), eq(String.class)))
@@ -401,38 +613,29 @@ public class DefaultArtifactoryClientTest {
     
     private String getJson(String fileName) throws IOException {
         InputStream inputStream = DefaultArtifactoryClient.class.getResourceAsStream(fileName);
-        return IOUtils.toString(inputStream);
+        return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
     }
 
 	// Artifactory Pagination Helper: returns artifact items json with updated times for testing purposes
-	private JSONObject updateJsonArtifactTimes(String fileName, long currentTime) throws IOException {
-		InputStream inputStream = DefaultArtifactoryClient.class.getResourceAsStream(fileName);
-		String jstr = IOUtils.toString(inputStream);
-		ObjectMapper mapper = new ObjectMapper();
-		Map jsonMap = mapper.readValue(jstr, Map.class);
-		List<Map<String, String>> results = (List) jsonMap.get("results");
+	private ObjectNode updateJsonArtifactTimes(String fileName, long currentTime) throws IOException {
+		ObjectNode response = (ObjectNode) MAPPER.readTree(getJson(fileName));
 		long updatedTime = currentTime;
 
-		for (Map<String, String> j : results) {
+		for (JsonNode j : response.get("results")) {
 			// override default dates to last few days for testing purposes
-			j.replace("created", (FULL_DATE.format(new Date(updatedTime))));
+			((ObjectNode) j).put("created", FULL_DATE.format(new Date(updatedTime)));
 			updatedTime += TimeUnit.DAYS.toMillis(1);
 		}
-
-		JSONObject response = new JSONObject();
-		response.put("results", results);
-		response.put("range", jsonMap.get("range"));
 		return response;
 	}
 
 	// Artifactory Pagination Helper: returns queried json string based on time interval
-	private String queryJsonByTime(JSONObject artifactItems, long createdGT, long createdLTE) {
-		List<Map<String, String>> results = (List) artifactItems.get("results");
-		List<Map<String, String>> queriedResults = new ArrayList<>();
+	private String queryJsonByTime(ObjectNode artifactItems, long createdGT, long createdLTE) throws IOException {
+		ArrayNode queriedResults = MAPPER.createArrayNode();
 
-		for (Map<String, String> j : results) {
+		for (JsonNode j : artifactItems.get("results")) {
 			try {
-				Date d = FULL_DATE.parse(j.get("created"));
+				Date d = FULL_DATE.parse(j.get("created").asText());
 				if (d.getTime() > createdGT && d.getTime() <= createdLTE) {
 					queriedResults.add(j);
 				}
@@ -441,45 +644,39 @@ public class DefaultArtifactoryClientTest {
 			}
 		}
 
-		JSONObject response = new JSONObject();
-		response.put("results", queriedResults);
-		response.put("range", artifactItems.get("range"));
-		return response.toJSONString();
+		ObjectNode response = MAPPER.createObjectNode();
+		response.set("results", queriedResults);
+		response.set("range", artifactItems.get("range"));
+		return MAPPER.writeValueAsString(response);
 
 	}
 
 	// new getArtifacts helper
 	private String updateJsonArtifactFields(String fileName, Map<String, String> fields) throws IOException {
-		InputStream inputStream = DefaultArtifactoryClient.class.getResourceAsStream(fileName);
-		String jstr = IOUtils.toString(inputStream);
-		ObjectMapper mapper = new ObjectMapper();
-		Map jsonMap = mapper.readValue(jstr, Map.class);
-		List<Map<String, String>> results = (List) jsonMap.get("results");
+		ObjectNode response = (ObjectNode) MAPPER.readTree(getJson(fileName));
 
-		for (Map<String, String> j : results) {
+		for (JsonNode j : response.get("results")) {
 			// override default field value(s) for testing purposes
 			for (String field : fields.keySet()) {
-				j.replace(field, fields.get(field));
+				if (j.has(field)) {
+					((ObjectNode) j).put(field, fields.get(field));
+				}
 			}
 		}
-
-		JSONObject response = new JSONObject();
-		response.put("results", results);
-		response.put("range", jsonMap.get("range"));
-		return response.toJSONString();
+		return MAPPER.writeValueAsString(response);
 	}
 
     private Iterable<BinaryArtifact> binaryArtifactIterable(boolean buildInfo){
     	BinaryArtifact b = new BinaryArtifact();
 		b.setType("file");
-		b.setCreatedTimeStamp(new Long("1539268036031"));
+		b.setCreatedTimeStamp(1539268036031L);
 		b.setCreatedBy("auto");
-		b.setModifiedTimeStamp(new Long("1539268036031"));
+		b.setModifiedTimeStamp(1539268036031L);
 		b.setModifiedBy("auto");
 		b.setActual_md5("111aadc11ed11b1111df111d16d6c8d821112f1");
 		b.setActual_sha1("111aadc11ed11b1111df111d16d6c8d821112f1");
 		b.setCanonicalName("name");
-		b.setTimestamp(new Long("1539268036031"));
+		b.setTimestamp(1539268036031L);
 		b.setCollectorItemId(ObjectId.get());
 		if(buildInfo){
 			b.setBuildInfos(buildInfo());
@@ -488,25 +685,36 @@ public class DefaultArtifactoryClientTest {
 
 		BinaryArtifact b_1 = new BinaryArtifact();
 		b_1.setType("file");
-		b_1.setCreatedTimeStamp(new Long("1539268036031"));
+		b_1.setCreatedTimeStamp(1539268036031L);
 		b_1.setCreatedBy("auto");
-		b_1.setModifiedTimeStamp(new Long("1539268036031"));
+		b_1.setModifiedTimeStamp(1539268036031L);
 		b_1.setModifiedBy("auto");
 		b_1.setActual_md5("111aadc11ed11b1111df111d16d6c8d821112f1");
 		b_1.setActual_sha1("111aadc11ed11b1111df111d16d6c8d821112f1");
 		b_1.setCanonicalName("name");
-		b_1.setTimestamp(new Long("1539268036031"));
+		b_1.setTimestamp(1539268036031L);
 		b_1.setCollectorItemId(ObjectId.get());
 
 
 		return Arrays.asList(b,b_1);
 	}
 
+	private List<BinaryArtifact> existingBinaryArtifacts(String artifactName, String artifactVersion) {
+		List<BinaryArtifact> existing = new ArrayList<>();
+		for (BinaryArtifact b : binaryArtifactIterable(true)) {
+			b.setId(ObjectId.get());
+			b.setArtifactName(artifactName);
+			b.setArtifactVersion(artifactVersion);
+			existing.add(b);
+		}
+		return existing;
+	}
+
 	private List<Build> buildInfo(){
     	Build build = new Build();
     	build.setBuildUrl("http://localhost:8082/generic/test/job");
     	build.setNumber("773");
-    	build.setTimestamp(new Long("1539268036031"));
+    	build.setTimestamp(1539268036031L);
     	build.setStartedBy("auto");
     	build.setCollectorItemId(ObjectId.get());
     	return Arrays.asList(build);
@@ -515,16 +723,16 @@ public class DefaultArtifactoryClientTest {
 	private BinaryArtifact binaryArtifactLatestCollectorItemId(ObjectId collectorItemId, boolean buildInfo){
 		BinaryArtifact b = new BinaryArtifact();
 		b.setType("file");
-		b.setCreatedTimeStamp(new Long("1539268036031"));
+		b.setCreatedTimeStamp(1539268036031L);
 		b.setCreatedBy("auto");
-		b.setModifiedTimeStamp(new Long("1539268036031"));
+		b.setModifiedTimeStamp(1539268036031L);
 		b.setModifiedBy("auto");
 		b.setActual_md5("111aadc11ed11b1111df111d16d6c8d821112f1");
 		b.setActual_sha1("111aadc11ed11b1111df111d16d6c8d821112f1");
 		b.setCanonicalName("name");
 		b.setArtifactName("test-dev");
 		b.setArtifactVersion("0");
-		b.setTimestamp(new Long("1539268036031"));
+		b.setTimestamp(1539268036031L);
 		b.setCollectorItemId(collectorItemId);
 		if(buildInfo){
 			b.setBuildInfos(buildInfo());
@@ -536,9 +744,9 @@ public class DefaultArtifactoryClientTest {
 	private BinaryArtifact createMatchedExistingBinaryArtifact(ObjectId collectorItemId, String artifactName, String artifactVersion, String path, String repoName, boolean buildInfo){
 		BinaryArtifact b = new BinaryArtifact();
 		b.setType("file");
-		b.setCreatedTimeStamp(new Long("1539268036031"));
+		b.setCreatedTimeStamp(1539268036031L);
 		b.setCreatedBy("auto");
-		b.setModifiedTimeStamp(new Long("1539268036031"));
+		b.setModifiedTimeStamp(1539268036031L);
 		b.setModifiedBy("auto");
 		b.setActual_md5("111aadc11ed11b1111df111d16d6c8d821112f1");
 		b.setActual_sha1("111aadc11ed11b1111df111d16d6c8d821112f1");
@@ -547,7 +755,7 @@ public class DefaultArtifactoryClientTest {
 		b.setArtifactVersion(artifactVersion);
 		b.setRepo(repoName);
 		b.setPath(path);
-		b.setTimestamp(new Long("1539268036031"));
+		b.setTimestamp(1539268036031L);
 		b.setCollectorItemId(collectorItemId);
 		if(buildInfo){
 			b.setBuildInfos(buildInfo());
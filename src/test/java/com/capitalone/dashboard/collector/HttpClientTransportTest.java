@@ -0,0 +1,138 @@
+package com.capitalone.dashboard.collector;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class HttpClientTransportTest {
+    private static final String AQL_RESPONSE = "{\"results\":[{\"repo\":\"release\",\"path\":\"com/mycompany\",\"name\":\"a.jar\"}],"
+            + "\"range\":{\"start_pos\":0,\"end_pos\":1,\"total\":1}}";
+
+    private HttpServer server;
+    private String baseUrl;
+    private final Map<String, String> received = new ConcurrentHashMap<>();
+    private HttpClientTransport transport;
+
+    @Before
+    public void init() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/search/aql", exchange -> {
+            received.put("acceptEncoding", String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+            received.put("authorization", String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+            received.put("body", new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            byte[] gzipped = gzip(AQL_RESPONSE);
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, gzipped.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(gzipped);
+            }
+        });
+        server.createContext("/api/repositories", exchange -> {
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+        ArtifactorySettings settings = new ArtifactorySettings();
+        settings.setConnectTimeout(5000);
+        settings.setReadTimeout(5000);
+        transport = new HttpClientTransport(settings);
+    }
+
+    @After
+    public void cleanup() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testPostDecodesGzipResponse() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, "Basic dXNlcjprZXk=");
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        ResponseEntity<String> response = transport.post(baseUrl + "/api/search/aql", headers, "items.find()");
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(response.getBody(), is(AQL_RESPONSE));
+        assertThat(received.get("acceptEncoding"), is("gzip"));
+        assertThat(received.get("authorization"), is("Basic dXNlcjprZXk="));
+        assertThat(received.get("body"), is("items.find()"));
+    }
+
+    @Test
+    public void testPostStreamsGzipResponseToTheReader() throws IOException {
+        List<String> names = new ArrayList<>();
+        Integer rows = transport.post(baseUrl + "/api/search/aql", new HttpHeaders(), "items.find()",
+                in -> AqlResultParser.parse(in, item -> names.add(item.getName())));
+        assertThat(rows, is(1));
+        assertThat(names, is(Collections.singletonList("a.jar")));
+        assertThat(received.get("body"), is("items.find()"));
+    }
+
+    @Test
+    public void testStreamedClientErrorIsRaisedBeforeTheReader() throws IOException {
+        try {
+            transport.post(baseUrl + "/missing", new HttpHeaders(), "items.find()", in -> {
+                fail("the reader is not called for a failed request");
+                return null;
+            });
+            fail("expected HttpClientErrorException");
+        } catch (HttpClientErrorException e) {
+            assertThat(e.getStatusCode(), is(HttpStatus.NOT_FOUND));
+        }
+    }
+
+    @Test
+    public void testGetPlainResponse() {
+        ResponseEntity<String> response = transport.get(baseUrl + "/api/repositories", new HttpHeaders());
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(response.getBody(), is("[]"));
+    }
+
+    @Test
+    public void testClientErrorRaisesHttpClientErrorException() {
+        try {
+            transport.get(baseUrl + "/missing", new HttpHeaders());
+            fail("expected HttpClientErrorException");
+        } catch (HttpClientErrorException e) {
+            assertThat(e.getStatusCode(), is(HttpStatus.NOT_FOUND));
+        }
+    }
+
+    private static byte[] gzip(String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,124 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.RepoAndPattern;
+import com.capitalone.dashboard.model.ServerSetting;
+import com.capitalone.dashboard.util.ArtifactUtilTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class RepoRoutingTableTest {
+    private static final String SERVER = "http://localhost:8081/artifactory";
+    private static final String OTHER_SERVER = "http://localhost:8082/artifactory";
+
+    private RepoRoutingTable routingTable;
+
+    @Before
+    public void init() {
+        RepoAndPattern release = new RepoAndPattern();
+        release.setRepo("release");
+        release.setPatterns(Arrays.asList(ArtifactUtilTest.MAVEN_PATTERN1, ArtifactUtilTest.ARTIFACT_PATTERN));
+        release.setSubRepos(Arrays.asList("sub-repo-1", "sub-repo-2"));
+        RepoAndPattern docker = new RepoAndPattern();
+        docker.setRepo("docker");
+        docker.setPatterns(Collections.singletonList(ArtifactUtilTest.ARTIFACT_PATTERN));
+        ServerSetting serverSetting = new ServerSetting();
+        serverSetting.setUrl("http://localhost:8081/artifactory");
+        serverSetting.setRepoAndPatterns(Arrays.asList(release, docker));
+        RepoAndPattern dockerLocal = new RepoAndPattern();
+        dockerLocal.setRepo("docker-local");
+        dockerLocal.setPatterns(Collections.singletonList(ArtifactUtilTest.MAVEN_PATTERN1));
+        ServerSetting otherServer = new ServerSetting();
+        otherServer.setUrl("http://localhost:8082/artifactory");
+        otherServer.setRepoAndPatterns(Collections.singletonList(dockerLocal));
+        ArtifactorySettings settings = new ArtifactorySettings();
+        settings.setServers(Arrays.asList(serverSetting, otherServer));
+        routingTable = new RepoRoutingTable(settings);
+    }
+
+    @Test
+    public void testGetByRepoAndSubRepo() {
+        assertThat(routingTable.get(SERVER, "release").size(), is(2));
+        assertThat(routingTable.get(SERVER, "release").get(0).pattern(), is(ArtifactUtilTest.MAVEN_PATTERN1));
+        assertThat(routingTable.get(SERVER, "sub-repo-2"), sameInstance(routingTable.get(SERVER, "release")));
+        assertThat(routingTable.get(SERVER, "docker").size(), is(1));
+    }
+
+    @Test
+    public void testSameRegexCompiledOnce() {
+        Pattern fromRelease = routingTable.get(SERVER, "release").get(1);
+        Pattern fromDocker = routingTable.get(SERVER, "docker").get(0);
+        assertThat(fromDocker, sameInstance(fromRelease));
+        assertThat(routingTable.getAll().size(), is(4));
+    }
+
+    @Test
+    public void testGetByLongestContainedRepoName() {
+        assertThat(routingTable.get(SERVER, "release-docker"), sameInstance(routingTable.get(SERVER, "release")));
+        assertThat(routingTable.get(SERVER, "docker-remote"), sameInstance(routingTable.get(SERVER, "docker")));
+        assertThat(routingTable.get(OTHER_SERVER, "docker-local-cache"), sameInstance(routingTable.get(OTHER_SERVER, "docker-local")));
+        assertThat(routingTable.match(SERVER, "sub-repo-1-cache").getRepo(), is("release"));
+    }
+
+    @Test
+    public void testRoutes() {
+        assertThat(routingTable.getRepos(), is(Arrays.asList("release", "docker", "docker-local")));
+        assertThat(routingTable.getRepos(OTHER_SERVER), is(Collections.singletonList("docker-local")));
+        assertThat(routingTable.getRepos(SERVER + "/"), is(Arrays.asList("release", "docker")));
+        assertThat(routingTable.getSubRepos(SERVER).keySet(), is(Collections.singleton("release")));
+        assertThat(routingTable.getSubRepos(OTHER_SERVER).isEmpty(), is(true));
+        assertThat(routingTable.route(SERVER, "sub-repo-1").getServerUrl(), is(SERVER));
+        assertThat(routingTable.route(OTHER_SERVER, "docker-local").getServerUrl(), is(OTHER_SERVER));
+        assertThat(routingTable.getRootRepo(SERVER, "sub-repo-2"), is("release"));
+        assertThat(routingTable.getRootRepo(SERVER, "docker"), is("docker"));
+        assertThat(routingTable.getRootRepo(SERVER, "docker-remote"), nullValue());
+    }
+
+    @Test
+    public void testReposAreRoutedPerServer() {
+        // docker-local is only configured on the other server
+        assertThat(routingTable.route(SERVER, "docker-local"), nullValue());
+        assertThat(routingTable.getRootRepo(OTHER_SERVER, "sub-repo-1"), nullValue());
+
+        RepoAndPattern first = new RepoAndPattern();
+        first.setRepo("release");
+        first.setPatterns(Collections.singletonList(ArtifactUtilTest.MAVEN_PATTERN1));
+        first.setSubRepos(Collections.singletonList("sub-repo-1"));
+        RepoAndPattern second = new RepoAndPattern();
+        second.setRepo("release");
+        second.setPatterns(Collections.singletonList(ArtifactUtilTest.ARTIFACT_PATTERN));
+        second.setSubRepos(Collections.singletonList("sub-repo-2"));
+        ArtifactorySettings settings = new ArtifactorySettings();
+        settings.setServers(Arrays.asList(serverSetting(SERVER, first), serverSetting(OTHER_SERVER, second)));
+        RepoRoutingTable table = new RepoRoutingTable(settings);
+
+        assertThat(table.get(SERVER, "release").get(0).pattern(), is(ArtifactUtilTest.MAVEN_PATTERN1));
+        assertThat(table.get(OTHER_SERVER, "release").get(0).pattern(), is(ArtifactUtilTest.ARTIFACT_PATTERN));
+        assertThat(table.getRootRepo(SERVER, "sub-repo-1"), is("release"));
+        assertThat(table.getRootRepo(SERVER, "sub-repo-2"), nullValue());
+        assertThat(table.getRootRepo(OTHER_SERVER, "sub-repo-2"), is("release"));
+        assertThat(table.route(OTHER_SERVER, "release").getServerUrl(), is(OTHER_SERVER));
+    }
+
+    @Test
+    public void testGetUnknownRepo() {
+        assertThat(routingTable.get(SERVER, "snapshot"), nullValue());
+        assertThat(routingTable.get(SERVER, null), nullValue());
+        assertThat(routingTable.get("http://localhost:8083/artifactory", "release"), nullValue());
+    }
+
+    private static ServerSetting serverSetting(String url, RepoAndPattern... repoAndPatterns) {
+        ServerSetting serverSetting = new ServerSetting();
+        serverSetting.setUrl(url);
+        serverSetting.setRepoAndPatterns(Arrays.asList(repoAndPatterns));
+        return serverSetting;
+    }
+}
@@ -0,0 +1,115 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.RepoCheckpoint;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class RepoWatermarkTest {
+    private static final long OVERLAP = 1000L;
+    private static final int MAX_ROWS = 100;
+
+    @Test
+    public void testObservedRowsOnlyCountOnceCommitted() {
+        RepoCheckpoint checkpoint = checkpoint();
+        RepoWatermark watermark = new RepoWatermark(checkpoint, OVERLAP, MAX_ROWS);
+        assertThat(watermark.hasWatermark(), is(false));
+
+        watermark.observe(binaryArtifact("a.jar", "sha-a", 5000L));
+        assertThat(watermark.hasWatermark(), is(false));
+        assertThat(watermark.isCommitted(binaryArtifact("a.jar", "sha-a", 5000L)), is(false));
+
+        watermark.commit();
+        assertThat(watermark.getWatermark(), is(5000L));
+        assertThat(watermark.isCommitted(binaryArtifact("a.jar", "sha-a", 5000L)), is(true));
+        assertThat(checkpoint.getOverlapRows().size(), is(1));
+    }
+
+    @Test
+    public void testOnlyRowsInsideTheOverlapAreKept() {
+        RepoCheckpoint checkpoint = checkpoint();
+        RepoWatermark watermark = new RepoWatermark(checkpoint, OVERLAP, MAX_ROWS);
+        watermark.observe(binaryArtifact("old.jar", "sha-old", 3000L));
+        watermark.observe(binaryArtifact("edge.jar", "sha-edge", 4000L));
+        watermark.observe(binaryArtifact("new.jar", "sha-new", 4500L));
+        watermark.observe(binaryArtifact("new.jar", "sha-new", 4500L));
+        watermark.observe(binaryArtifact("last.jar", "sha-last", 5000L));
+        watermark.commit();
+
+        assertThat(checkpoint.getWatermark(), is(5000L));
+        assertThat(checkpoint.getOverlapRows().size(), is(2));
+        assertThat(checkpoint.getOverlapRows().get(0).getModified(), is(4500L));
+        assertThat(checkpoint.getOverlapRows().get(1).getModified(), is(5000L));
+    }
+
+    @Test
+    public void testResumesFromPersistedCheckpoint() {
+        RepoCheckpoint checkpoint = checkpoint();
+        RepoWatermark first = new RepoWatermark(checkpoint, OVERLAP, MAX_ROWS);
+        first.observe(binaryArtifact("a.jar", "sha-a", 5000L));
+        first.commit();
+
+        RepoWatermark next = new RepoWatermark(checkpoint, OVERLAP, MAX_ROWS);
+        assertThat(next.isCommitted("com/mycompany/a.jar", "sha-a", 5000L), is(true));
+        // a redeployed artifact has a new checksum and is processed again
+        assertThat(next.isCommitted("com/mycompany/a.jar", "sha-b", 5000L), is(false));
+        // as is one whose properties changed since
+        assertThat(next.isCommitted("com/mycompany/a.jar", "sha-a", 5200L), is(false));
+
+        next.observe("com/mycompany/b.jar", "sha-b", 4800L);
+        next.commit();
+        assertThat(checkpoint.getWatermark(), is(5000L));
+        assertThat(checkpoint.getOverlapRows().size(), is(2));
+
+        next.observe("com/mycompany/c.jar", "sha-c", 7000L);
+        next.commit();
+        assertThat(checkpoint.getWatermark(), is(7000L));
+        assertThat(checkpoint.getOverlapRows().size(), is(1));
+    }
+
+    @Test
+    public void testOverlapRowsAreCappedToTheLatest() {
+        RepoCheckpoint checkpoint = checkpoint();
+        RepoWatermark watermark = new RepoWatermark(checkpoint, OVERLAP, 2);
+        watermark.observe(binaryArtifact("a.jar", "sha-a", 4600L));
+        watermark.observe(binaryArtifact("b.jar", "sha-b", 4800L));
+        watermark.observe(binaryArtifact("c.jar", "sha-c", 5000L));
+        watermark.commit();
+
+        assertThat(checkpoint.getWatermark(), is(5000L));
+        assertThat(checkpoint.getOverlapRows().size(), is(2));
+        RepoWatermark next = new RepoWatermark(checkpoint, OVERLAP, 2);
+        assertThat(next.isCommitted(binaryArtifact("a.jar", "sha-a", 4600L)), is(false));
+        assertThat(next.isCommitted(binaryArtifact("b.jar", "sha-b", 4800L)), is(true));
+        assertThat(next.isCommitted(binaryArtifact("c.jar", "sha-c", 5000L)), is(true));
+    }
+
+    @Test
+    public void testModifiedFallsBackToCreated() {
+        RepoCheckpoint checkpoint = checkpoint();
+        RepoWatermark watermark = new RepoWatermark(checkpoint, OVERLAP, MAX_ROWS);
+        BinaryArtifact binaryArtifact = binaryArtifact("a.jar", "sha-a", 0L);
+        binaryArtifact.setCreatedTimeStamp(3000L);
+        watermark.observe(binaryArtifact);
+        watermark.commit();
+
+        assertThat(checkpoint.getWatermark(), is(3000L));
+        assertThat(watermark.isCommitted("com/mycompany/a.jar", "sha-a", 3000L), is(true));
+    }
+
+    private static RepoCheckpoint checkpoint() {
+        return new RepoCheckpoint(new ObjectId(), "http://localhost:8081/artifactory/", "release", 0);
+    }
+
+    private static BinaryArtifact binaryArtifact(String name, String sha1, long modified) {
+        BinaryArtifact binaryArtifact = new BinaryArtifact();
+        binaryArtifact.setPath("com/mycompany");
+        binaryArtifact.setCanonicalName(name);
+        binaryArtifact.setActual_sha1(sha1);
+        binaryArtifact.setModifiedTimeStamp(modified);
+        return binaryArtifact;
+    }
+}
@@ -0,0 +1,198 @@
+package com.capitalone.dashboard.service;
+
+import com.capitalone.dashboard.collector.ArtifactorySettings;
+import com.capitalone.dashboard.collector.DefaultArtifactoryClient;
+import com.capitalone.dashboard.model.Application;
+import com.capitalone.dashboard.model.ArtifactItem;
+import com.capitalone.dashboard.model.ArtifactSyncRequest;
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.CollectorItem;
+import com.capitalone.dashboard.model.CollectorType;
+import com.capitalone.dashboard.model.Component;
+import com.capitalone.dashboard.model.Dashboard;
+import com.capitalone.dashboard.model.RefreshJob;
+import com.capitalone.dashboard.repository.ArtifactItemRepository;
+import com.capitalone.dashboard.repository.BinaryArtifactRepository;
+import com.capitalone.dashboard.repository.ComponentRepository;
+import com.capitalone.dashboard.repository.DashboardRepository;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArtifactRefreshServiceTest {
+    @Mock private DefaultArtifactoryClient artifactoryClient;
+    @Mock private ArtifactItemRepository artifactItemRepository;
+    @Mock private ComponentRepository componentRepository;
+    @Mock private DashboardRepository dashboardRepository;
+    @Mock private BinaryArtifactRepository binaryArtifactRepository;
+
+    private ArtifactRefreshService service;
+
+    @Before
+    public void setup() {
+        ArtifactorySettings settings = new ArtifactorySettings();
+        settings.setRefreshParallelism(2);
+        service = new ArtifactRefreshService(artifactoryClient, artifactItemRepository, componentRepository,
+                dashboardRepository, binaryArtifactRepository, settings);
+    }
+
+    @After
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void testJobReportsProgressAndLists() throws InterruptedException {
+        CollectorItem withData = collectorItem("with-data");
+        CollectorItem withoutData = collectorItem("without-data");
+        dashboard("configured", component(withData, withoutData));
+        dashboard("not-configured", new Component("empty"));
+        when(dashboardRepository.findByTitle("missing")).thenReturn(Collections.emptyList());
+        when(artifactoryClient.getArtifacts(any(ArtifactItem.class), anyListOf(Pattern.class))).thenReturn(Collections.emptyList());
+        when(binaryArtifactRepository.findByCollectorItemIdAndTimestampIsBetweenOrderByTimestampDesc(eq(withData.getId()), anyLong(), anyLong()))
+                .thenReturn(Collections.singletonList(new BinaryArtifact()));
+        when(binaryArtifactRepository.findByCollectorItemIdAndTimestampIsBetweenOrderByTimestampDesc(eq(withoutData.getId()), anyLong(), anyLong()))
+                .thenReturn(Collections.emptyList());
+
+        RefreshJob job = service.submit(request("configured", "not-configured", "missing"));
+        assertThat(service.getJob(job.getId()), is(job));
+        awaitDone(job);
+
+        assertThat(job.getStatus(), is(RefreshJob.Status.COMPLETED));
+        assertThat(job.getDashboardCount(), is(2));
+        assertThat(job.getCollectorItemsCount(), is(2));
+        assertThat(job.getProcessedCollectorItemsCount(), is(2));
+        assertThat(job.getFailedCollectorItemsCount(), is(0));
+        assertThat(job.getActualCollectorItemsDataCount(), is(1));
+        assertThat(job.getDashboardNotPresent(), is(Collections.singletonList("missing")));
+        assertThat(job.getDashboardNotConfiguredWithArtifactory(), is(Collections.singletonList("not-configured")));
+        assertThat(job.getCollectorItemDataNotFound().size(), is(2));
+        verify(artifactItemRepository, times(2)).save(any(ArtifactItem.class));
+    }
+
+    @Test
+    public void testFailingItemDoesNotFailTheJob() throws InterruptedException {
+        CollectorItem failing = collectorItem("failing");
+        dashboard("configured", component(failing));
+        when(artifactoryClient.getArtifacts(any(ArtifactItem.class), anyListOf(Pattern.class))).thenThrow(new IllegalStateException("down"));
+
+        RefreshJob job = service.submit(request("configured"));
+        awaitDone(job);
+
+        assertThat(job.getStatus(), is(RefreshJob.Status.COMPLETED));
+        assertThat(job.getProcessedCollectorItemsCount(), is(1));
+        assertThat(job.getFailedCollectorItemsCount(), is(1));
+        assertThat(service.getJob("unknown"), nullValue());
+    }
+
+    @Test
+    public void testFailingDashboardDoesNotFailTheJob() throws InterruptedException {
+        CollectorItem item = collectorItem("item");
+        dashboard("configured", component(item));
+        Dashboard withoutApplication = new Dashboard();
+        withoutApplication.setTitle("no-application");
+        when(dashboardRepository.findByTitle("no-application")).thenReturn(Collections.singletonList(withoutApplication));
+        Component broken = new Component("broken");
+        dashboard("broken", broken);
+        when(componentRepository.findById(broken.getId())).thenThrow(new IllegalStateException("down"));
+        when(artifactoryClient.getArtifacts(any(ArtifactItem.class), anyListOf(Pattern.class))).thenReturn(Collections.emptyList());
+
+        RefreshJob job = service.submit(request("no-application", "broken", "configured"));
+        awaitDone(job);
+
+        // the dashboards after the failing ones are still refreshed
+        assertThat(job.getStatus(), is(RefreshJob.Status.COMPLETED));
+        assertThat(job.getDashboardNotConfiguredWithArtifactory(), is(Collections.singletonList("no-application")));
+        assertThat(job.getDashboardFailed(), is(Collections.singletonList("broken")));
+        assertThat(job.getProcessedCollectorItemsCount(), is(1));
+        verify(artifactItemRepository).save(any(ArtifactItem.class));
+    }
+
+    @Test
+    public void testRefreshesOfTheSameItemDoNotOverlap() throws InterruptedException {
+        CollectorItem item = collectorItem("item");
+        dashboard("configured", component(item));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(artifactoryClient.getArtifacts(any(ArtifactItem.class), anyListOf(Pattern.class))).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return Collections.emptyList();
+        });
+
+        // two jobs for the same dashboard, with a worker free for each
+        RefreshJob first = service.submit(request("configured"));
+        RefreshJob second = service.submit(request("configured"));
+        awaitDone(first);
+        awaitDone(second);
+
+        assertThat(maxRunning.get(), is(1));
+        verify(artifactoryClient, times(2)).getArtifacts(any(ArtifactItem.class), anyListOf(Pattern.class));
+    }
+
+    private static void awaitDone(RefreshJob job) throws InterruptedException {
+        for (int i = 0; i < 500 && !job.isDone(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(job.isDone(), is(true));
+    }
+
+    private static ArtifactSyncRequest request(String... dashboards) {
+        ArtifactSyncRequest request = new ArtifactSyncRequest();
+        request.setDashboards(Arrays.asList(dashboards));
+        request.setStartTime(0L);
+        request.setEndTime(System.currentTimeMillis());
+        return request;
+    }
+
+    private void dashboard(String title, Component component) {
+        component.setId(ObjectId.get());
+        Dashboard dashboard = new Dashboard();
+        dashboard.setTitle(title);
+        dashboard.setApplication(new Application(title, component));
+        when(dashboardRepository.findByTitle(title)).thenReturn(Collections.singletonList(dashboard));
+        when(componentRepository.findById(component.getId())).thenReturn(Optional.of(component));
+    }
+
+    private static Component component(CollectorItem... collectorItems) {
+        Component component = new Component("artifacts");
+        for (CollectorItem collectorItem : collectorItems) {
+            component.addCollectorItem(CollectorType.Artifact, collectorItem);
+        }
+        return component;
+    }
+
+    private static CollectorItem collectorItem(String artifactName) {
+        CollectorItem collectorItem = new CollectorItem();
+        collectorItem.setId(ObjectId.get());
+        collectorItem.getOptions().put("repoName", "release");
+        collectorItem.getOptions().put("artifactName", artifactName);
+        collectorItem.getOptions().put("path", "com/mycompany/" + artifactName);
+        collectorItem.getOptions().put("instanceUrl", "http://localhost:8081/artifactory/");
+        return collectorItem;
+    }
+}
@@ -0,0 +1,142 @@
+package com.capitalone.dashboard.service;
+
+import com.capitalone.dashboard.collector.ArtifactorySettings;
+import com.capitalone.dashboard.collector.DefaultArtifactoryClient;
+import com.capitalone.dashboard.model.ArtifactItem;
+import com.capitalone.dashboard.model.ArtifactVersionRequest;
+import com.capitalone.dashboard.model.BinaryArtifact;
+import com.capitalone.dashboard.model.Collector;
+import com.capitalone.dashboard.repository.ArtifactItemRepository;
+import com.capitalone.dashboard.repository.CollectorRepository;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArtifactVersionServiceTest {
+    @Mock private DefaultArtifactoryClient artifactoryClient;
+    @Mock private ArtifactItemRepository artifactItemRepository;
+    @Mock private CollectorRepository collectorRepository;
+
+    private ArtifactorySettings settings;
+    private ArtifactItem artifactItem;
+
+    @Before
+    public void setup() {
+        settings = new ArtifactorySettings();
+        Collector collector = new Collector();
+        collector.setId(ObjectId.get());
+        when(collectorRepository.findByName("Artifactory")).thenReturn(collector);
+        artifactItem = new ArtifactItem("release", "test-dev", "com/mycompany/test-dev", "http://localhost:8081/artifactory/");
+        artifactItem.setId(ObjectId.get());
+        when(artifactItemRepository.findArtifactItemByOptions(eq(collector.getId()), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(Collections.singletonList(artifactItem));
+    }
+
+    @Test
+    public void testCachedResultAnswersLaterStartTimes() {
+        when(artifactoryClient.getArtifactsForVersion(any(ArtifactItem.class), eq("1.0"), anyLong(), anyListOf(Pattern.class)))
+                .thenReturn(Arrays.asList(binaryArtifact(1000L), binaryArtifact(3000L)));
+        ArtifactVersionService service = newService();
+
+        assertThat(service.findArtifactsByVersion(request("1.0", 500L)).size(), is(2));
+        assertThat(service.findArtifactsByVersion(request("1.0", 500L)).size(), is(2));
+        assertThat(service.findArtifactsByVersion(request("1.0", 2000L)).size(), is(1));
+        verify(artifactoryClient, times(1)).getArtifactsForVersion(any(ArtifactItem.class), eq("1.0"), anyLong(), anyListOf(Pattern.class));
+
+        // an earlier start time than the cached one is not covered by the cache
+        service.findArtifactsByVersion(request("1.0", 0L));
+        verify(artifactoryClient, times(2)).getArtifactsForVersion(any(ArtifactItem.class), eq("1.0"), anyLong(), anyListOf(Pattern.class));
+    }
+
+    @Test
+    public void testEmptyResultsAreNotCached() {
+        when(artifactoryClient.getArtifactsForVersion(any(ArtifactItem.class), eq("2.0"), anyLong(), anyListOf(Pattern.class)))
+                .thenReturn(Collections.emptyList());
+        ArtifactVersionService service = newService();
+
+        service.findArtifactsByVersion(request("2.0", 0L));
+        service.findArtifactsByVersion(request("2.0", 0L));
+        verify(artifactoryClient, times(2)).getArtifactsForVersion(any(ArtifactItem.class), eq("2.0"), anyLong(), anyListOf(Pattern.class));
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        settings.setVersionCacheTtl(0);
+        when(artifactoryClient.getArtifactsForVersion(any(ArtifactItem.class), eq("1.0"), anyLong(), anyListOf(Pattern.class)))
+                .thenReturn(Collections.singletonList(binaryArtifact(1000L)));
+        ArtifactVersionService service = newService();
+
+        service.findArtifactsByVersion(request("1.0", 0L));
+        service.findArtifactsByVersion(request("1.0", 0L));
+        verify(artifactoryClient, times(2)).getArtifactsForVersion(any(ArtifactItem.class), eq("1.0"), anyLong(), anyListOf(Pattern.class));
+    }
+
+    @Test
+    public void testItemsSharingAPathAreCachedSeparately() {
+        ArtifactItem other = new ArtifactItem("release", "test-dev", "com/mycompany/test-dev", "http://localhost:8081/artifactory/");
+        other.setId(ObjectId.get());
+        when(artifactItemRepository.findArtifactItemByOptions(any(ObjectId.class), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(Arrays.asList(artifactItem, other));
+        when(artifactoryClient.getArtifactsForVersion(any(ArtifactItem.class), eq("1.0"), anyLong(), anyListOf(Pattern.class)))
+                .thenAnswer(invocation -> {
+                    BinaryArtifact binaryArtifact = binaryArtifact(1000L);
+                    binaryArtifact.setCollectorItemId(((ArtifactItem) invocation.getArguments()[0]).getId());
+                    return Collections.singletonList(binaryArtifact);
+                });
+        ArtifactVersionService service = newService();
+
+        service.findArtifactsByVersion(request("1.0", 0L));
+        List<BinaryArtifact> bas = service.findArtifactsByVersion(request("1.0", 0L));
+        // each item is looked up, and written, once and answered with its own artifacts
+        ArgumentCaptor<ArtifactItem> looked = ArgumentCaptor.forClass(ArtifactItem.class);
+        verify(artifactoryClient, times(2)).getArtifactsForVersion(looked.capture(), eq("1.0"), anyLong(), anyListOf(Pattern.class));
+        assertThat(looked.getAllValues().get(0).getId(), is(artifactItem.getId()));
+        assertThat(looked.getAllValues().get(1).getId(), is(other.getId()));
+        assertThat(bas.size(), is(2));
+        assertThat(bas.get(0).getCollectorItemId(), is(artifactItem.getId()));
+        assertThat(bas.get(1).getCollectorItemId(), is(other.getId()));
+    }
+
+    private ArtifactVersionService newService() {
+        return new ArtifactVersionService(artifactoryClient, artifactItemRepository, collectorRepository, settings);
+    }
+
+    private static ArtifactVersionRequest request(String version, long startTime) {
+        ArtifactVersionRequest request = new ArtifactVersionRequest();
+        request.setArtifactName("test-dev");
+        request.setRepoName("release");
+        request.setPath("com/mycompany/test-dev");
+        request.setInstanceUrl("http://localhost:8081/artifactory/");
+        request.setArtifactVersion(version);
+        request.setStartTime(startTime);
+        return request;
+    }
+
+    private static BinaryArtifact binaryArtifact(long created) {
+        BinaryArtifact binaryArtifact = new BinaryArtifact();
+        binaryArtifact.setArtifactVersion("1.0");
+        binaryArtifact.setCreatedTimeStamp(created);
+        return binaryArtifact;
+    }
+}
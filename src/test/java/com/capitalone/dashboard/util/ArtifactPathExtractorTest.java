@@ -0,0 +1,52 @@
+package com.capitalone.dashboard.util;
+
+import com.capitalone.dashboard.model.BinaryArtifact;
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ArtifactPathExtractorTest {
+
+    @Test
+    public void testExtractorCreatedOncePerPattern() {
+        Pattern pattern = Pattern.compile(ArtifactUtilTest.ARTIFACT_PATTERN);
+        assertThat(ArtifactPathExtractor.of(pattern), sameInstance(ArtifactPathExtractor.of(pattern)));
+        assertThat(ArtifactPathExtractor.of(pattern).getPattern(), sameInstance(pattern));
+    }
+
+    @Test
+    public void testUndeclaredGroupsAreNull() {
+        ArtifactPathExtractor extractor = ArtifactPathExtractor.of(Pattern.compile(ArtifactUtilTest.CHEF_PATTERN));
+        BinaryArtifact ba = extractor.parse("myCookbook/1.2.3/myCookbook.tar");
+        assertThat(ba.getArtifactName(), is("myCookbook"));
+        assertThat(ba.getArtifactVersion(), is("1.2.3"));
+        assertThat(ba.getArtifactExtension(), is("tar"));
+        assertThat(ba.getArtifactGroupId(), nullValue());
+        assertThat(ba.getArtifactModule(), nullValue());
+        assertThat(ba.getArtifactClassifier(), nullValue());
+    }
+
+    @Test
+    public void testValidParseMissingOptionalClassifier() {
+        ArtifactPathExtractor extractor = ArtifactPathExtractor.of(Pattern.compile(ArtifactUtilTest.MAVEN_PATTERN1));
+        BinaryArtifact result = new BinaryArtifact();
+        // classifier is declared by the pattern but absent from the path
+        assertThat(extractor.validParse(result, "com/mycompany/myapp/1.0/myapp-1.0.jar"), is(false));
+        assertThat(result.getArtifactGroupId(), is("com.mycompany"));
+        assertThat(result.getArtifactVersion(), is("1.0"));
+        assertThat(extractor.validParse(result, "com/mycompany/myapp/1.0/myapp-1.0-sources.jar"), is(true));
+        assertThat(result.getArtifactClassifier(), is("sources"));
+    }
+
+    @Test
+    public void testNoMatch() {
+        ArtifactPathExtractor extractor = ArtifactPathExtractor.of(Pattern.compile(ArtifactUtilTest.MAVEN_PATTERN1));
+        assertThat(extractor.parse("not-an-artifact"), nullValue());
+        assertThat(extractor.validParse(new BinaryArtifact(), "not-an-artifact"), is(false));
+    }
+}